@@ -0,0 +1,99 @@
+package com.example.benchmarks;
+
+import com.example.book.entity.Book;
+import com.example.book.repository.BookRepository;
+import com.example.book.service.BookService;
+import com.example.book.service.BorrowQueue;
+import com.example.book.service.BorrowResult;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rafale d'emprunts d'un seul livre: emprunt synchrone contre file à commit groupé
+ *
+ * - sync: BookService.borrowBook (une transaction et un commit par emprunt)
+ * - async: BorrowQueue.submit puis attente de l'issue du ticket (une
+ *   transaction par groupe d'emprunts du micro-lot)
+ * Le débit compte des emprunts terminés dans les deux cas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+public class AsyncBorrowBenchmark {
+
+    // Stock assez grand pour ne jamais tomber à zéro pendant une mesure
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"sync", "async"})
+    public String borrowMode;
+
+    private StubPricingServer pricingServer;
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BorrowQueue borrowQueue;
+    private long hotBookId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pricingServer = new StubPricingServer();
+        context = BookServiceContext.start(pricingServer.url(),
+                "--book.borrow.async.enabled=" + borrowMode.equals("async"));
+        bookService = context.getBean(BookService.class);
+        borrowQueue = context.getBean(BorrowQueue.class);
+
+        hotBookId = context.getBean(BookRepository.class)
+                .save(new Book("Launch event book", "Benchmark author", INITIAL_STOCK))
+                .getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        pricingServer.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long borrowed;
+        public long rejected;
+
+        void record(BorrowResult result) {
+            if (result.success()) {
+                borrowed++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+
+    @Benchmark
+    public BorrowResult hotBook(Outcomes outcomes) {
+        BorrowResult result = borrowQueue.isEnabled()
+                ? borrowQueue.submit(hotBookId).completion().join()
+                : bookService.borrowBook(hotBookId);
+        outcomes.record(result);
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.benchmarks;
+
+import com.example.book.BookServiceApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Démarre book-service en processus (sans serveur web, ou avec Tomcat sur un port libre)
+ * Profil dev (H2 en mémoire) par défaut, ou profil prod sur une base MySQL existante.
+ */
+final class BookServiceContext {
+
+    /**
+     * Base H2 en mémoire (valeur du paramètre database des benchmarks)
+     */
+    static final String H2 = "h2";
+
+    private BookServiceContext() {
+    }
+
+    /**
+     * @param pricingUrl     URL du pricing-service (en général {@link StubPricingServer#url()})
+     * @param extraArguments propriétés supplémentaires, ex: "--book.borrow.stock-mode=atomic"
+     * @return contexte démarré, à fermer en fin de benchmark
+     */
+    static ConfigurableApplicationContext start(String pricingUrl, String... extraArguments) {
+        return startOn(H2, pricingUrl, extraArguments);
+    }
+
+    /**
+     * @param database       {@link #H2}, ou URL JDBC d'une base MySQL (profil prod; identifiants
+     *                       SPRING_DATASOURCE_USERNAME/PASSWORD, ceux de docker-compose par défaut)
+     * @param pricingUrl     URL du pricing-service
+     * @param extraArguments propriétés supplémentaires
+     * @return contexte démarré, à fermer en fin de benchmark
+     */
+    static ConfigurableApplicationContext startOn(String database, String pricingUrl, String... extraArguments) {
+        return run(WebApplicationType.NONE, database, pricingUrl, extraArguments);
+    }
+
+    /**
+     * Démarre book-service avec son serveur HTTP (H2, port tiré au hasard, voir {@link #port})
+     *
+     * @param pricingUrl     URL du pricing-service
+     * @param extraArguments propriétés supplémentaires
+     * @return contexte démarré, à fermer en fin de benchmark
+     */
+    static ConfigurableApplicationContext startServer(String pricingUrl, String... extraArguments) {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0"));
+        arguments.addAll(List.of(extraArguments));
+        return run(WebApplicationType.SERVLET, H2, pricingUrl, arguments.toArray(String[]::new));
+    }
+
+    /**
+     * @return port HTTP d'un contexte démarré par {@link #startServer}
+     */
+    static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType webApplicationType, String database,
+                                                      String pricingUrl, String... extraArguments) {
+        // Arguments de ligne de commande: prioritaires sur application.yml (logs DEBUG du profil dev)
+        List<String> arguments = new ArrayList<>();
+        if (H2.equals(database)) {
+            arguments.add("--spring.profiles.active=dev");
+        } else {
+            arguments.add("--spring.profiles.active=prod");
+            arguments.add("--spring.datasource.url=" + database);
+        }
+        arguments.addAll(List.of(
+                "--pricing.service.url=" + pricingUrl,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.book=WARN",
+                "--logging.level.io.github.resilience4j=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        arguments.addAll(List.of(extraArguments));
+
+        return new SpringApplicationBuilder(BookServiceApplication.class)
+                .web(webApplicationType)
+                .bannerMode(Banner.Mode.OFF)
+                .run(arguments.toArray(String[]::new));
+    }
+}
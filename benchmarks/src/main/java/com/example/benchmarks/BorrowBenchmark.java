@@ -0,0 +1,133 @@
+package com.example.benchmarks;
+
+import com.example.book.entity.Book;
+import com.example.book.repository.BookRepository;
+import com.example.book.service.BookService;
+import com.example.book.service.BorrowResult;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookService.borrowBook sur H2 ou MySQL, pricing-service simulé en processus
+ *
+ * - hotBook: tous les threads empruntent le même livre (contention maximale sur une ligne)
+ * - spreadIds: emprunts répartis uniformément sur BOOK_COUNT livres
+ *
+ * Les compteurs borrowed/rejected distinguent les emprunts réussis des refus
+ * (conflits optimistes notamment), le débit brut incluant les deux.
+ *
+ * pricingLatencyMs simule la latence réseau de pricing-service. Avec
+ * priceCache=warm, seul le premier emprunt d'un livre la paie; avec
+ * priceCache=disabled (pricing.cache.maximum-size=0), chaque emprunt
+ * interroge pricing-service et la latence entre dans la mesure.
+ *
+ * database vaut h2 (base en mémoire) ou l'URL JDBC d'une base MySQL déjà
+ * démarrée (docker compose up mysql), pour mesurer les verrous de ligne et
+ * les allers-retours d'un vrai serveur: les modes de stock ne s'y classent
+ * pas forcément comme sur H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class BorrowBenchmark {
+
+    private static final int BOOK_COUNT = 10_000;
+    // Stock assez grand pour ne jamais tomber à zéro pendant une mesure
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"pessimistic", "atomic", "optimistic"})
+    public String stockMode;
+
+    @Param({"0", "20"})
+    public int pricingLatencyMs;
+
+    @Param({"warm", "disabled"})
+    public String priceCache;
+
+    @Param({BookServiceContext.H2})
+    public String database;
+
+    private StubPricingServer pricingServer;
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private long[] bookIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pricingServer = new StubPricingServer(Duration.ofMillis(pricingLatencyMs));
+        List<String> arguments = new ArrayList<>(List.of("--book.borrow.stock-mode=" + stockMode));
+        if ("disabled".equals(priceCache)) {
+            arguments.add("--pricing.cache.maximum-size=0");
+        }
+        context = BookServiceContext.startOn(database, pricingServer.url(), arguments.toArray(String[]::new));
+        bookService = context.getBean(BookService.class);
+
+        List<Book> books = new ArrayList<>(BOOK_COUNT);
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            books.add(new Book("Benchmark book " + i, "Author " + (i % 100), INITIAL_STOCK));
+        }
+        bookIds = context.getBean(BookRepository.class).saveAll(books).stream()
+                .mapToLong(Book::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        pricingServer.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long borrowed;
+        public long rejected;
+
+        void record(BorrowResult result) {
+            if (result.success()) {
+                borrowed++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+
+    @Benchmark
+    public BorrowResult hotBook(Outcomes outcomes) {
+        BorrowResult result = bookService.borrowBook(bookIds[0]);
+        outcomes.record(result);
+        return result;
+    }
+
+    @Benchmark
+    public BorrowResult spreadIds(Outcomes outcomes) {
+        BorrowResult result = bookService.borrowBook(bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)]);
+        outcomes.record(result);
+        return result;
+    }
+}
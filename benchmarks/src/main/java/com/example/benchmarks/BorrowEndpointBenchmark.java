@@ -0,0 +1,101 @@
+package com.example.benchmarks;
+
+import com.example.book.entity.Book;
+import com.example.book.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /books/{id}/borrow de bout en bout (HTTP), distribution des latences
+ *
+ * - pooled: pool keep-alive de book-service vers pricing-service (configuration par défaut)
+ * - per-call: connexions à durée de vie de 1ms (pricing.http.connection-ttl), soit une
+ *   nouvelle connexion TCP par appel, comme l'ancien SimpleClientHttpRequestFactory
+ *
+ * Le cache de prix est désactivé: chaque emprunt appelle pricing-service.
+ * En mode SampleTime, JMH rapporte les percentiles (borrow·p0.99 pour le p99).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(16)
+public class BorrowEndpointBenchmark {
+
+    private static final int BOOK_COUNT = 1_000;
+    // Stock assez grand pour ne jamais tomber à zéro pendant une mesure
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"pooled", "per-call"})
+    public String pricingConnections;
+
+    @Param({"1"})
+    public int pricingLatencyMs;
+
+    private StubPricingServer pricingServer;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest[] borrowRequests;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pricingServer = new StubPricingServer(Duration.ofMillis(pricingLatencyMs));
+        List<String> arguments = new ArrayList<>(List.of("--pricing.cache.maximum-size=0"));
+        if ("per-call".equals(pricingConnections)) {
+            arguments.add("--pricing.http.connection-ttl=1ms");
+        }
+        context = BookServiceContext.startServer(pricingServer.url(), arguments.toArray(String[]::new));
+        String bookServiceUrl = "http://localhost:" + BookServiceContext.port(context);
+
+        List<Book> books = new ArrayList<>(BOOK_COUNT);
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            books.add(new Book("Benchmark book " + i, "Author " + (i % 100), INITIAL_STOCK));
+        }
+        borrowRequests = context.getBean(BookRepository.class).saveAll(books).stream()
+                .map(book -> HttpRequest.newBuilder(URI.create(bookServiceUrl + "/books/" + book.getId() + "/borrow"))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build())
+                .toArray(HttpRequest[]::new);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        pricingServer.close();
+    }
+
+    @Benchmark
+    public int borrow() throws IOException, InterruptedException {
+        HttpRequest request = borrowRequests[ThreadLocalRandom.current().nextInt(borrowRequests.length)];
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.benchmarks;
+
+import com.example.book.metrics.BorrowStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût ajouté à chaque emprunt par le comptage des titres les plus demandés
+ *
+ * - hotBook: tous les threads comptent le même livre (bandes par thread)
+ * - spreadIds: IDs répartis sur un catalogue bien plus grand que la table
+ *   des candidats (chemin d'admission)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class BorrowStatsBenchmark {
+
+    private static final int CATALOG_SIZE = 1_000_000;
+
+    private BorrowStats borrowStats;
+
+    // Le thread de rotation (démon) tourne pendant la mesure, comme en service
+    @Setup(Level.Trial)
+    public void setUp() {
+        borrowStats = new BorrowStats(new SimpleMeterRegistry(), true, 10, 1024, 512);
+    }
+
+    @Benchmark
+    public void hotBook() {
+        borrowStats.record(42L, 1);
+    }
+
+    @Benchmark
+    public void spreadIds() {
+        borrowStats.record(1 + ThreadLocalRandom.current().nextInt(CATALOG_SIZE), 1);
+    }
+}
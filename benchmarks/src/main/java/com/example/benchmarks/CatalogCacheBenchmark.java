@@ -0,0 +1,124 @@
+package com.example.benchmarks;
+
+import com.example.book.entity.Book;
+import com.example.book.repository.BookRepository;
+import com.example.book.service.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charge base d'un catalogue très lu, avec et sans cache de second niveau
+ *
+ * Mélange de lectures (livre par ID, page du catalogue) et d'un emprunt
+ * toutes les writeEvery opérations en moyenne. cache=false désactive le
+ * cache d'entités et le cache de requêtes.
+ *
+ * Le compteur statements compte les requêtes SQL préparées par Hibernate
+ * (Statistics): rapporté au débit, il donne la charge base par opération.
+ * En mode atomic, l'UPDATE de l'emprunt passe par JDBC et n'y figure pas
+ * (une requête de plus par emprunt, compteur borrows).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+public class CatalogCacheBenchmark {
+
+    private static final int BOOK_COUNT = 1_000;
+    private static final int PAGE_SIZE = 20;
+    // Stock assez grand pour ne jamais tomber à zéro pendant une mesure
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    @Param({"pessimistic", "atomic"})
+    public String stockMode;
+
+    @Param({"10"})
+    public int writeEvery;
+
+    private StubPricingServer pricingServer;
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private Statistics statistics;
+    private long[] bookIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pricingServer = new StubPricingServer();
+        context = BookServiceContext.start(pricingServer.url(),
+                "--book.borrow.stock-mode=" + stockMode,
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cache,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + cache);
+        bookService = context.getBean(BookService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<Book> books = new ArrayList<>(BOOK_COUNT);
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            books.add(new Book("Benchmark book " + i, "Author " + (i % 100), INITIAL_STOCK));
+        }
+        bookIds = context.getBean(BookRepository.class).saveAll(books).stream()
+                .mapToLong(Book::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        pricingServer.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class DbLoad {
+        public long statements;
+        public long borrows;
+    }
+
+    @Benchmark
+    public Object readHeavy(DbLoad load) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long before = statistics.getPrepareStatementCount();
+        Object result;
+        int operation = random.nextInt(writeEvery);
+        if (operation == 0) {
+            result = bookService.borrowBook(bookIds[random.nextInt(bookIds.length)]);
+            load.borrows++;
+        } else if (operation % 2 == 0) {
+            // Curseur aligné sur une page: les mêmes pages sont relues
+            long after = bookIds[random.nextInt(BOOK_COUNT / PAGE_SIZE) * PAGE_SIZE] - 1;
+            result = bookService.getAllBooks(after, PAGE_SIZE);
+        } else {
+            result = bookService.getBookById(bookIds[random.nextInt(bookIds.length)]);
+        }
+        load.statements += statistics.getPrepareStatementCount() - before;
+        return result;
+    }
+}
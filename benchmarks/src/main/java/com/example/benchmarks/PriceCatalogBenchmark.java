@@ -0,0 +1,76 @@
+package com.example.benchmarks;
+
+import com.example.pricing.catalog.LongDoubleHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogue primitif (LongDoubleHashMap) contre HashMap&lt;Long, Double&gt;
+ * Lookups aléatoires: à 10M entrées, la table ne tient plus dans les caches CPU.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PriceCatalogBenchmark {
+
+    private static final int PROBE_MASK = (1 << 16) - 1;
+
+    @Param({"100000", "10000000"})
+    public int size;
+
+    private LongDoubleHashMap primitive;
+    private Map<Long, Double> boxed;
+    private long[] probes;
+
+    @Setup
+    public void setUp() {
+        LongDoubleHashMap.Builder builder = new LongDoubleHashMap.Builder(size);
+        boxed = new HashMap<>(size * 2);
+        for (long bookId = 1; bookId <= size; bookId++) {
+            double price = 10.0 + (bookId % 10) * 2.5;
+            builder.put(bookId, price);
+            boxed.put(bookId, price);
+        }
+        primitive = builder.build();
+
+        // 90% de livres présents, 10% absents
+        SplittableRandom random = new SplittableRandom(42);
+        probes = new long[PROBE_MASK + 1];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = 1 + random.nextLong(size + size / 9L);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public double primitiveLookup(Cursor cursor) {
+        return primitive.getOrDefault(probes[cursor.next++ & PROBE_MASK], 0.0);
+    }
+
+    @Benchmark
+    public double boxedLookup(Cursor cursor) {
+        Double price = boxed.get(probes[cursor.next++ & PROBE_MASK]);
+        return price != null ? price : 0.0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.benchmarks;
+
+import com.example.book.client.PricingServiceClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * PricingServiceClient (RestTemplate + pool HTTP + Retry/CircuitBreaker) contre un pricing-service en processus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(4)
+public class PricingClientBenchmark {
+
+    private StubPricingServer pricingServer;
+    private ConfigurableApplicationContext context;
+    private PricingServiceClient pricingServiceClient;
+    private List<Long> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pricingServer = new StubPricingServer();
+        context = BookServiceContext.start(pricingServer.url());
+        pricingServiceClient = context.getBean(PricingServiceClient.class);
+        batch = LongStream.rangeClosed(1, 100).boxed().toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        pricingServer.close();
+    }
+
+    @Benchmark
+    public Double getPrice() {
+        return pricingServiceClient.getPrice(1 + (long) ThreadLocalRandom.current().nextInt(10_000));
+    }
+
+    @Benchmark
+    public Map<Long, Double> getPrices100() {
+        return pricingServiceClient.getPrices(batch);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.benchmarks;
+
+import com.example.pricing.service.PricingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * PricingService.getPrice / getPrices, sans couche HTTP
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingServiceBenchmark {
+
+    private PricingService pricingService;
+    private List<Long> batch;
+
+    @Setup
+    public void setUp() {
+        pricingService = new PricingService(new SimpleMeterRegistry(), "");
+        batch = LongStream.rangeClosed(1, 100).boxed().toList();
+    }
+
+    /**
+     * Livre présent dans le catalogue
+     */
+    @Benchmark
+    public double getPriceCatalog() {
+        return pricingService.getPrice(1 + ThreadLocalRandom.current().nextInt(5));
+    }
+
+    /**
+     * Livre absent du catalogue (prix calculé)
+     */
+    @Benchmark
+    public double getPriceDefault() {
+        return pricingService.getPrice(100 + ThreadLocalRandom.current().nextInt(1_000_000));
+    }
+
+    @Benchmark
+    public Map<Long, Double> getPrices100() {
+        return pricingService.getPrices(batch);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.benchmarks;
+
+import com.example.book.client.PriceQuote;
+import com.example.book.entity.Book;
+import com.example.book.repository.BookView;
+import com.example.book.service.BorrowPrice;
+import com.example.book.service.BorrowResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction et sérialisation JSON des réponses de book-service
+ * (ObjectMapper configuré comme Spring MVC), ancienne forme contre forme typée
+ *
+ * - borrowResponseMap / borrowResponseRecord: réponse d'un emprunt réussi,
+ *   HashMap de valeurs boxées contre {@link BorrowResult}
+ * - bookPageEntities / bookPageViews: page de 100 livres (GET /books),
+ *   entités contre projections {@link BookView}
+ * - streamPerLine / streamGenerator: 100 lignes NDJSON (GET /books/stream),
+ *   un tableau d'octets par livre contre un générateur partagé
+ *
+ * Allocation par opération: -prof gc (gc.alloc.rate.norm, octets/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter bookLineWriter;
+    private PriceQuote quote;
+    private List<Book> bookPage;
+    private List<BookView> viewPage;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        // Même configuration que BookController
+        bookLineWriter = objectMapper.writerFor(BookView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator((String) null);
+        quote = new PriceQuote(42L, 29.99, PriceQuote.Source.PRICING_SERVICE);
+
+        bookPage = new ArrayList<>(PAGE_SIZE);
+        viewPage = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Book book = new Book("Benchmark book " + i, "Author " + (i % 10), i);
+            book.setId((long) i + 1);
+            bookPage.add(book);
+            viewPage.add(BookView.of(book));
+        }
+        out = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @Benchmark
+    public byte[] borrowResponseMap() throws IOException {
+        Map<String, Object> result = new HashMap<>();
+        result.put("bookId", 42L);
+        result.put("timestamp", System.currentTimeMillis());
+        result.put("title", "Domain-Driven Design");
+        result.put("author", "Eric Evans");
+        result.put("success", true);
+        result.put("status", "BORROWED");
+        result.put("previousStock", 3);
+        result.put("remainingStock", 2);
+        result.put("price", quote.price());
+        result.put("currency", "EUR");
+        result.put("pricingServiceAvailable", quote.isLive());
+        result.put("priceSource", quote.source().name());
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] borrowResponseRecord() throws IOException {
+        BorrowResult result = BorrowResult.borrowed(42L, System.currentTimeMillis(),
+                "Domain-Driven Design", "Eric Evans", 3, 2, BorrowPrice.of(quote));
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] bookPageEntities() throws IOException {
+        return objectMapper.writeValueAsBytes(bookPage);
+    }
+
+    @Benchmark
+    public byte[] bookPageViews() throws IOException {
+        return objectMapper.writeValueAsBytes(viewPage);
+    }
+
+    @Benchmark
+    public int streamPerLine() throws IOException {
+        out.reset();
+        for (BookView book : viewPage) {
+            out.write(objectMapper.writeValueAsBytes(book));
+            out.write('\n');
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int streamGenerator() throws IOException {
+        out.reset();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (BookView book : viewPage) {
+                bookLineWriter.writeValue(generator, book);
+                generator.writeRaw('\n');
+            }
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.benchmarks;
+
+import com.example.book.entity.Book;
+import com.example.book.repository.BookRepository;
+import com.example.book.repository.BookSearchHit;
+import com.example.book.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookService.searchBooks sur un catalogue de BOOK_COUNT livres
+ *
+ * - database=h2: recherche portable par motif LIKE (parcours complet de la table)
+ * - database=URL JDBC MySQL: index FULLTEXT (profil prod, book.search.fulltext=true)
+ *
+ * Chaque titre contient deux mots d'un vocabulaire de WORDS.length mots
+ * (selectivity=common: environ 2% des livres correspondent) et une référence
+ * unique (selectivity=rare: un livre par FULLTEXT, quelques-uns par motif LIKE,
+ * "ref12" couvrant aussi "ref120"...). Sur MySQL, les livres déjà
+ * présents sont conservés d'un essai à l'autre: seul le complément est inséré.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(4)
+public class SearchBenchmark {
+
+    private static final int BOOK_COUNT = 1_000_000;
+    private static final int INSERT_CHUNK = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final String[] WORDS = vocabulary(100);
+
+    @Param({BookServiceContext.H2})
+    public String database;
+
+    @Param({"common", "rare"})
+    public String selectivity;
+
+    private StubPricingServer pricingServer;
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pricingServer = new StubPricingServer();
+        context = BookServiceContext.startOn(database, pricingServer.url());
+        bookService = context.getBean(BookService.class);
+
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        // Une transaction par lot: le contexte de persistance ne retient pas le million de livres
+        for (long i = bookRepository.count(); i < BOOK_COUNT; ) {
+            List<Book> books = new ArrayList<>(INSERT_CHUNK);
+            for (int j = 0; j < INSERT_CHUNK && i < BOOK_COUNT; j++, i++) {
+                books.add(new Book(title(i), "Author " + (i % 1_000), 10));
+            }
+            bookRepository.saveAll(books);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        pricingServer.close();
+    }
+
+    @Benchmark
+    public List<BookSearchHit> search() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String query = "common".equals(selectivity)
+                ? WORDS[random.nextInt(WORDS.length)]
+                : "ref" + random.nextInt(BOOK_COUNT);
+        return bookService.searchBooks(query, 0, PAGE_SIZE);
+    }
+
+    private static String title(long i) {
+        return WORDS[(int) (i % WORDS.length)] + " " + WORDS[(int) (i / WORDS.length % WORDS.length)]
+                + " ref" + i;
+    }
+
+    /**
+     * Mots distincts de six lettres (au-delà de la longueur minimale des mots indexés par FULLTEXT)
+     */
+    private static String[] vocabulary(int size) {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            words[i] = "word" + (char) ('a' + i / 26 % 26) + (char) ('a' + i % 26);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.benchmarks;
+
+import com.example.book.entity.Book;
+import com.example.book.repository.BookRepository;
+import com.example.book.service.BookInventoryService;
+import com.example.book.service.BookService;
+import com.example.book.service.BorrowResult;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emprunts concurrents d'un seul livre en mode STRIPED, selon le nombre de seaux
+ *
+ * buckets=1 équivaut à une ligne unique (référence); le débit doit croître
+ * avec le nombre de seaux tant que le verrou de ligne est le goulot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class StripedBorrowBenchmark {
+
+    // Stock assez grand pour ne jamais tomber à zéro pendant une mesure
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"1", "4", "16"})
+    public int buckets;
+
+    private StubPricingServer pricingServer;
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private long hotBookId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pricingServer = new StubPricingServer();
+        context = BookServiceContext.start(pricingServer.url(), "--book.borrow.stock-mode=striped");
+        bookService = context.getBean(BookService.class);
+
+        hotBookId = context.getBean(BookRepository.class)
+                .save(new Book("Flash sale book", "Benchmark author", INITIAL_STOCK))
+                .getId();
+        context.getBean(BookInventoryService.class).stripeStock(hotBookId, buckets);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        pricingServer.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long borrowed;
+        public long rejected;
+
+        void record(BorrowResult result) {
+            if (result.success()) {
+                borrowed++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+
+    @Benchmark
+    public BorrowResult hotBook(Outcomes outcomes) {
+        BorrowResult result = bookService.borrowBook(hotBookId);
+        outcomes.record(result);
+        return result;
+    }
+}
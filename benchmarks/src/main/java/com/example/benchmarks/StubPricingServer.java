@@ -0,0 +1,123 @@
+package com.example.benchmarks;
+
+import com.example.pricing.service.PricingService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * pricing-service en processus, pour mesurer le chemin client sans dépendre du réseau
+ *
+ * Expose GET /price/{bookId} et POST /prices avec le même format JSON que
+ * PricingController; les prix viennent d'un vrai {@link PricingService}.
+ * Le transport est le serveur HTTP du JDK, plus léger que Tomcat, afin que
+ * la mesure porte sur le client (RestTemplate, pool, Resilience4j).
+ *
+ * Une latence fixe par requête peut être simulée, pour approcher le coût d'un
+ * vrai appel réseau (cache de prix froid ou désactivé).
+ */
+final class StubPricingServer implements AutoCloseable {
+
+    private static final TypeReference<List<Long>> BOOK_IDS = new TypeReference<>() {
+    };
+
+    static {
+        // Sans TCP_NODELAY, en-têtes et corps partent en deux segments: ~40ms d'ACK retardé par réponse
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final PricingService pricingService = new PricingService(new SimpleMeterRegistry(), "");
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long latencyMillis;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    StubPricingServer() throws IOException {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param latency délai ajouté avant chaque réponse
+     */
+    StubPricingServer(Duration latency) throws IOException {
+        latencyMillis = latency.toMillis();
+        executor = Executors.newFixedThreadPool(32, runnable -> {
+            Thread thread = new Thread(runnable, "stub-pricing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/price/", this::handlePrice);
+        server.createContext("/prices", this::handlePrices);
+        server.start();
+    }
+
+    /**
+     * @return URL à utiliser comme pricing.service.url
+     */
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handlePrice(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        long bookId = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("bookId", bookId);
+        response.put("price", pricingService.getPrice(bookId));
+        response.put("currency", "EUR");
+        response.put("status", "success");
+        respond(exchange, response);
+    }
+
+    private void handlePrices(HttpExchange exchange) throws IOException {
+        List<Long> bookIds;
+        try (InputStream body = exchange.getRequestBody()) {
+            bookIds = objectMapper.readValue(body, BOOK_IDS);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("prices", pricingService.getPrices(bookIds));
+        response.put("currency", "EUR");
+        response.put("status", "success");
+        respond(exchange, response);
+    }
+
+    private void respond(HttpExchange exchange, Map<String, Object> response) throws IOException {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
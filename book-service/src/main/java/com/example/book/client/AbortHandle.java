@@ -0,0 +1,73 @@
+package com.example.book.client;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.util.function.Supplier;
+
+/**
+ * Interruption d'une requête HTTP en cours depuis un autre thread
+ *
+ * Pendant {@link #callWith}, la poignée est la poignée courante du thread:
+ * la fabrique de requêtes du RestTemplate (voir AppConfig) y attache la
+ * requête HttpClient qu'elle crée. {@link #abort()} ferme alors la connexion
+ * de cette requête, qui échoue aussitôt au lieu d'attendre sa réponse.
+ * Une requête attachée après l'interruption est annulée dès sa création.
+ */
+public final class AbortHandle {
+
+    private static final ThreadLocal<AbortHandle> CURRENT = new ThreadLocal<>();
+
+    private Cancellable request;
+    private boolean aborted;
+
+    /**
+     * Attache une requête à la poignée courante du thread (sans effet s'il n'y en a pas)
+     */
+    public static void attach(Cancellable request) {
+        AbortHandle handle = CURRENT.get();
+        if (handle != null) {
+            handle.set(request);
+        }
+    }
+
+    private synchronized void set(Cancellable request) {
+        if (aborted) {
+            request.cancel();
+        } else {
+            this.request = request;
+        }
+    }
+
+    /**
+     * Interrompt la requête en cours et les suivantes
+     */
+    public synchronized void abort() {
+        if (!aborted) {
+            aborted = true;
+            if (request != null) {
+                request.cancel();
+            }
+        }
+    }
+
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Exécute l'action avec cette poignée comme poignée courante du thread
+     */
+    public <T> T callWith(Supplier<T> action) {
+        AbortHandle previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
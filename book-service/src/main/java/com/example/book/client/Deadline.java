@@ -0,0 +1,103 @@
+package com.example.book.client;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Échéance absolue d'une opération (horloge monotone)
+ *
+ * Créée au début d'un emprunt (book.borrow.deadline), elle accompagne la
+ * résolution du prix jusqu'au client HTTP: aucune attente de retry ni aucun
+ * appel à pricing-service ne dépasse le temps restant.
+ *
+ * L'échéance courante est également exposée au thread qui exécute l'appel
+ * ({@link #callWith}), ce qui permet de borner le timeout de réponse HTTP
+ * sans modifier la signature des couches intermédiaires (cache, RestTemplate).
+ */
+public final class Deadline {
+
+    /** Absence d'échéance: seuls les timeouts HTTP s'appliquent */
+    public static final Deadline NONE = new Deadline(0L, false);
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+    private final boolean bounded;
+
+    private Deadline(long expiresAtNanos, boolean bounded) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * @param timeout temps accordé à partir de maintenant (null ou nul: pas d'échéance)
+     */
+    public static Deadline after(Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return NONE;
+        }
+        return new Deadline(System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    /**
+     * @return échéance du thread courant, {@link #NONE} si aucune
+     */
+    public static Deadline current() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? deadline : NONE;
+    }
+
+    /**
+     * @return l'échéance la plus lointaine des deux (un lot partagé sert tous ses appelants)
+     */
+    public static Deadline latest(Deadline a, Deadline b) {
+        if (!a.bounded || !b.bounded) {
+            return NONE;
+        }
+        return a.expiresAtNanos - b.expiresAtNanos >= 0 ? a : b;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return temps restant en nanosecondes (jamais négatif, Long.MAX_VALUE sans échéance)
+     */
+    public long remainingNanos() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, expiresAtNanos - System.nanoTime());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return bounded && remainingNanos() == 0L;
+    }
+
+    /**
+     * Exécute l'action avec cette échéance comme échéance courante du thread
+     */
+    public <T> T callWith(Supplier<T> action) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? "Deadline[remaining=" + remaining() + "]" : "Deadline[none]";
+    }
+}
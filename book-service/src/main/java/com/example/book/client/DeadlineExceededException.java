@@ -0,0 +1,12 @@
+package com.example.book.client;
+
+/**
+ * Échéance de l'appelant dépassée avant l'appel à pricing-service
+ * Traitée par {@link PriceCache} comme une indisponibilité (dernier prix connu ou fallback)
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
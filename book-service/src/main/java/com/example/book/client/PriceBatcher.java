@@ -0,0 +1,225 @@
+package com.example.book.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Regroupe les demandes de prix unitaires concurrentes en appels groupés
+ *
+ * Les demandes reçues pendant une fenêtre courte (pricing.batch.window) sont
+ * envoyées en un seul POST /prices via {@link PricingServiceClient#getPrices},
+ * le retry et le circuit breaker s'appliquant donc par lot. Un lot est envoyé
+ * plus tôt s'il atteint pricing.batch.max-size.
+ *
+ * Si pricing.batch.enabled=false, chaque demande part directement en GET /price/{bookId}:
+ * sur un thread virtuel si spring.threads.virtual.enabled=true, sinon sur un pool
+ * borné (pricing.load.threads, file pricing.load.queue-capacity). Pool saturé:
+ * la demande échoue aussitôt et l'appelant reçoit le fallback.
+ *
+ * L'échéance de chaque demande est transmise au client: un lot porte
+ * l'échéance la plus lointaine de ses demandes, chaque appelant bornant
+ * lui-même son attente du résultat. Un lot sans échéance (rafraîchissement
+ * du cache...) reçoit pricing.batch.max-deadline: les retries d'un lot ne
+ * dépassent jamais son échéance, attente dans la file comprise.
+ *
+ * Les lots sont envoyés par pricing.batch.threads threads (price-batch-N),
+ * file bornée à pricing.batch.queue-capacity lots: file pleine, les demandes
+ * du lot échouent aussitôt et les appelants reçoivent le fallback.
+ */
+@Component
+public class PriceBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceBatcher.class);
+
+    private final PricingServiceClient pricingServiceClient;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration maxBatchDeadline;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor dispatcher;
+    private final AsyncTaskExecutor directExecutor;
+    private final DistributionSummary batchSizeSummary;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Double>> pending = new HashMap<>();
+    private Deadline pendingDeadline;
+
+    public PriceBatcher(
+            PricingServiceClient pricingServiceClient,
+            MeterRegistry meterRegistry,
+            @Value("${pricing.batch.enabled:false}") boolean enabled,
+            @Value("${pricing.batch.window:5ms}") Duration window,
+            @Value("${pricing.batch.max-size:100}") int maxBatchSize,
+            @Value("${pricing.batch.threads:4}") int threads,
+            @Value("${pricing.batch.queue-capacity:100}") int queueCapacity,
+            @Value("${pricing.batch.max-deadline:2s}") Duration maxBatchDeadline,
+            @Value("${pricing.load.threads:16}") int loadThreads,
+            @Value("${pricing.load.queue-capacity:1000}") int loadQueueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.pricingServiceClient = pricingServiceClient;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchDeadline = maxBatchDeadline;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("price-batch-timer-"));
+        this.dispatcher = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                daemonThreads("price-batch-"));
+        this.directExecutor = virtualThreads
+                ? virtualThreadExecutor()
+                : boundedExecutor(loadThreads, loadQueueCapacity);
+        this.batchSizeSummary = DistributionSummary.builder("pricing.batch.size")
+                .description("Nombre de bookIds par appel groupé à pricing-service")
+                .register(meterRegistry);
+        logger.info("PriceBatcher initialized: enabled={}, window={}, maxBatchSize={}", enabled, window, maxBatchSize);
+    }
+
+    /**
+     * Récupère le prix d'un livre, en le regroupant avec les demandes concurrentes
+     * Aucun appel bloquant n'est effectué sur le thread appelant.
+     *
+     * @param bookId   ID du livre
+     * @param deadline échéance de l'appelant (retries et timeout HTTP bornés)
+     * @return prix du livre, en échec si le lot a échoué (retries épuisés, circuit ouvert)
+     */
+    public CompletableFuture<Double> getPriceAsync(Long bookId, Deadline deadline) {
+        if (!enabled) {
+            try {
+                return CompletableFuture.supplyAsync(() -> pricingServiceClient.getPrice(bookId, deadline), directExecutor);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return submit(bookId, deadline);
+    }
+
+    private CompletableFuture<Double> submit(Long bookId, Deadline deadline) {
+        CompletableFuture<Double> future;
+        Map<Long, CompletableFuture<Double>> fullBatch = null;
+        Deadline fullBatchDeadline = null;
+
+        synchronized (lock) {
+            future = pending.computeIfAbsent(bookId, id -> new CompletableFuture<>());
+            pendingDeadline = pendingDeadline == null ? deadline : Deadline.latest(pendingDeadline, deadline);
+            if (pending.size() == 1) {
+                // Première demande de la fenêtre: planifie l'envoi du lot
+                scheduler.schedule(this::flushPending, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                fullBatchDeadline = pendingDeadline;
+                pending = new HashMap<>();
+                pendingDeadline = null;
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch, fullBatchDeadline);
+        }
+        return future;
+    }
+
+    private void flushPending() {
+        Map<Long, CompletableFuture<Double>> batch;
+        Deadline deadline;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            deadline = pendingDeadline;
+            pending = new HashMap<>();
+            pendingDeadline = null;
+        }
+        dispatch(batch, deadline);
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Double>> batch, Deadline deadline) {
+        // Échéance fixée avant la file: un lot resté en attente n'a plus droit à ses retries
+        Deadline batchDeadline = deadline.isBounded() ? deadline : Deadline.after(maxBatchDeadline);
+        try {
+            dispatcher.execute(() -> send(batch, batchDeadline));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Price batch of {} bookIds rejected: dispatcher queue is full", batch.size());
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void send(Map<Long, CompletableFuture<Double>> batch, Deadline deadline) {
+        batchSizeSummary.record(batch.size());
+        try {
+            Map<Long, Double> prices = pricingServiceClient.getPrices(batch.keySet(), deadline);
+            batch.forEach((bookId, future) -> {
+                Double price = prices.get(bookId);
+                if (price != null) {
+                    future.complete(price);
+                } else {
+                    future.completeExceptionally(
+                            new IllegalStateException("No price returned for bookId=" + bookId));
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static AsyncTaskExecutor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("price-load-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Pool de threads plateforme borné pour les chargements unitaires (et les rafraîchissements du cache)
+     */
+    private static AsyncTaskExecutor boundedExecutor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("price-load-");
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setQueueCapacity(Math.max(0, queueCapacity));
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        dispatcher.shutdownNow();
+        if (directExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.book.client;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cache local des prix devant pricing-service
+ * Les chargements passent par {@link PriceBatcher} (regroupement des demandes)
+ *
+ * - Taille bornée (pricing.cache.maximum-size) avec éviction
+ * - Rafraîchissement en arrière-plan après pricing.cache.refresh-after:
+ *   l'entrée périmée est servie pendant que le nouveau prix est chargé
+ * - Expiration définitive après pricing.cache.expire-after
+ * - En cas d'échec (retries épuisés, circuit ouvert), le dernier prix connu
+ *   est servi à la place du prix par défaut (0.0)
+ * - Si le rafraîchissement d'une entrée échoue, l'entrée reste servie mais
+ *   signalée CACHED (pricingServiceAvailable=false) jusqu'au prochain
+ *   chargement réussi: une panne est visible au plus refresh-after après son début
+ *
+ * Les compteurs hit/miss/eviction sont exportés via Micrometer (cache=pricing).
+ *
+ * Le cache est asynchrone: le chargement ne s'exécute pas sous le verrou interne
+ * du cache, ce qui évite d'épingler le thread porteur avec les threads virtuels.
+ *
+ * Avec une échéance ({@link Deadline}), l'appelant n'attend pas au-delà du
+ * temps restant (pricing.deadline.exceeded): le chargement se poursuit en
+ * arrière-plan et alimentera le cache, l'appelant reçoit le fallback.
+ *
+ * Si la réplication est active et chargée ({@link PriceReplica}), le prix est
+ * lu dans le réplica local, sans passer par le cache ni par le réseau.
+ */
+@Component
+public class PriceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceCache.class);
+    private static final double FALLBACK_PRICE = 0.0;
+
+    private final PriceReplica priceReplica;
+    private final AsyncLoadingCache<Long, Double> prices;
+    private final Cache<Long, Double> lastKnownPrices;
+    // Livres dont le dernier chargement a échoué (entrée du cache non rafraîchie)
+    private final Cache<Long, Boolean> failedRefreshes;
+    private final Counter cachedCounter;
+    private final Counter lastKnownCounter;
+    private final Counter fallbackCounter;
+    private final Counter deadlineExceededCounter;
+
+    public PriceCache(
+            PriceBatcher priceBatcher,
+            PriceReplica priceReplica,
+            MeterRegistry meterRegistry,
+            @Value("${pricing.cache.maximum-size:10000}") long maximumSize,
+            @Value("${pricing.cache.refresh-after:5m}") Duration refreshAfter,
+            @Value("${pricing.cache.expire-after:1h}") Duration expireAfter,
+            @Value("${pricing.cache.last-known-expire-after:24h}") Duration lastKnownExpireAfter) {
+        this.priceReplica = priceReplica;
+        this.lastKnownPrices = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(lastKnownExpireAfter)
+                .build();
+        this.failedRefreshes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .build();
+        this.prices = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                // Le chargement est déclenché sur le thread appelant: il hérite de son échéance
+                .buildAsync((bookId, executor) -> priceBatcher.getPriceAsync(bookId, Deadline.current())
+                        .whenComplete((price, error) -> {
+                            if (error == null) {
+                                lastKnownPrices.put(bookId, price);
+                                failedRefreshes.invalidate(bookId);
+                            } else {
+                                failedRefreshes.put(bookId, Boolean.TRUE);
+                            }
+                        }));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, prices.synchronous(), "pricing");
+        this.cachedCounter = Counter.builder("pricing.fallback")
+                .description("Prix servis sans réponse de pricing-service")
+                .tag("source", "cached")
+                .register(meterRegistry);
+        this.lastKnownCounter = Counter.builder("pricing.fallback")
+                .description("Prix servis sans réponse de pricing-service")
+                .tag("source", "last_known")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("pricing.fallback")
+                .description("Prix servis sans réponse de pricing-service")
+                .tag("source", "default")
+                .register(meterRegistry);
+        this.deadlineExceededCounter = Counter.builder("pricing.deadline.exceeded")
+                .description("Résolutions de prix abandonnées à l'échéance de l'appelant")
+                .register(meterRegistry);
+
+        logger.info("PriceCache initialized: maximumSize={}, refreshAfter={}, expireAfter={}",
+                maximumSize, refreshAfter, expireAfter);
+    }
+
+    /**
+     * Résout le prix d'un livre sans échéance
+     *
+     * @see #getPrice(Long, Deadline)
+     */
+    public PriceQuote getPrice(Long bookId) {
+        return getPrice(bookId, Deadline.NONE);
+    }
+
+    /**
+     * Résout le prix d'un livre: réplica local, cache, puis pricing-service, puis fallback
+     *
+     * @param bookId   ID du livre
+     * @param deadline échéance de l'appelant
+     * @return prix et origine du prix
+     */
+    public PriceQuote getPrice(Long bookId, Deadline deadline) {
+        Double replicated = priceReplica.find(bookId);
+        if (replicated != null) {
+            return new PriceQuote(bookId, replicated, PriceQuote.Source.REPLICA);
+        }
+        try {
+            CompletableFuture<Double> price = deadline.callWith(() -> prices.get(bookId));
+            if (!deadline.isBounded()) {
+                return cachedQuote(bookId, price.join());
+            }
+            return cachedQuote(bookId, price.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            deadlineExceededCounter.increment();
+            return pricingFallback(bookId, e);
+        } catch (CompletionException | ExecutionException e) {
+            return pricingFallback(bookId, e.getCause() != null ? e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return pricingFallback(bookId, e);
+        } catch (RuntimeException e) {
+            return pricingFallback(bookId, e);
+        }
+    }
+
+    /**
+     * Résout le prix d'un livre sans bloquer le thread appelant
+     * Même ordre que {@link #getPrice(Long, Deadline)}; à l'échéance, le futur
+     * est complété avec le fallback et le chargement se poursuit en arrière-plan.
+     *
+     * @param bookId   ID du livre
+     * @param deadline échéance de l'appelant
+     * @return prix et origine du prix, jamais en échec
+     */
+    public CompletableFuture<PriceQuote> getPriceAsync(Long bookId, Deadline deadline) {
+        Double replicated = priceReplica.find(bookId);
+        if (replicated != null) {
+            return CompletableFuture.completedFuture(new PriceQuote(bookId, replicated, PriceQuote.Source.REPLICA));
+        }
+        CompletableFuture<Double> price;
+        try {
+            price = deadline.callWith(() -> prices.get(bookId));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(pricingFallback(bookId, e));
+        }
+        if (deadline.isBounded()) {
+            // Copie: le futur du cache, partagé, ne doit pas échouer à l'échéance d'un appelant
+            price = price.copy().orTimeout(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        }
+        return price.handle((value, error) -> {
+            if (error == null) {
+                return cachedQuote(bookId, value);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            if (cause instanceof TimeoutException) {
+                deadlineExceededCounter.increment();
+            }
+            return pricingFallback(bookId, cause);
+        });
+    }
+
+    /**
+     * Prix chargé ou servi par le cache: CACHED si le dernier rafraîchissement a échoué
+     */
+    private PriceQuote cachedQuote(Long bookId, double price) {
+        if (failedRefreshes.getIfPresent(bookId) != null) {
+            cachedCounter.increment();
+            return new PriceQuote(bookId, price, PriceQuote.Source.CACHED);
+        }
+        return new PriceQuote(bookId, price, PriceQuote.Source.PRICING_SERVICE);
+    }
+
+    /**
+     * Fallback appelé quand pricing-service est indisponible
+     * Retourne le dernier prix connu si possible, sinon le prix par défaut (0.0)
+     *
+     * @param bookId    ID du livre
+     * @param throwable exception qui a causé le fallback
+     * @return prix de secours
+     */
+    private PriceQuote pricingFallback(Long bookId, Throwable throwable) {
+        Double lastKnown = lastKnownPrices.getIfPresent(bookId);
+
+        logger.warn("=== FALLBACK TRIGGERED ===");
+        if (lastKnown != null) {
+            logger.warn("pricing-service unavailable for bookId={}, using last known price={}", bookId, lastKnown);
+        } else {
+            logger.warn("pricing-service unavailable for bookId={}, using fallback price={}", bookId, FALLBACK_PRICE);
+        }
+        logger.warn("Cause: {} - {}",
+                throwable.getClass().getSimpleName(),
+                throwable.getMessage());
+        logger.warn("==========================");
+
+        if (lastKnown != null) {
+            lastKnownCounter.increment();
+            return new PriceQuote(bookId, lastKnown, PriceQuote.Source.LAST_KNOWN);
+        }
+
+        fallbackCounter.increment();
+        return new PriceQuote(bookId, FALLBACK_PRICE, PriceQuote.Source.FALLBACK);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.book.client;
+
+/**
+ * Prix résolu pour un livre, avec son origine
+ *
+ * @param bookId ID du livre
+ * @param price  prix retenu
+ * @param source origine du prix
+ */
+public record PriceQuote(Long bookId, double price, Source source) {
+
+    public enum Source {
+        /** Prix obtenu depuis pricing-service ou depuis le cache local */
+        PRICING_SERVICE,
+        /** Prix du cache local dont le dernier rafraîchissement a échoué, pricing-service étant indisponible */
+        CACHED,
+        /** Prix lu dans le réplica local du catalogue de pricing-service */
+        REPLICA,
+        /** Dernier prix connu, pricing-service étant indisponible */
+        LAST_KNOWN,
+        /** Prix par défaut, aucun prix connu pour ce livre */
+        FALLBACK
+    }
+
+    /**
+     * @return true si le prix provient de pricing-service (directement, via le cache ou le réplica)
+     */
+    public boolean isLive() {
+        return source == Source.PRICING_SERVICE || source == Source.REPLICA;
+    }
+}
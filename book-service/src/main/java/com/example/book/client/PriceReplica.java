@@ -0,0 +1,292 @@
+package com.example.book.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réplica local du catalogue de prix de pricing-service
+ *
+ * Un thread dédié charge l'instantané (GET /replication/snapshot), puis
+ * applique en continu les modifications (GET /replication/changes, en
+ * long-poll: la requête attend la prochaine publication au plus
+ * pricing.replication.wait). Les emprunts résolvent alors leur prix en
+ * mémoire, sans appel réseau, y compris pendant une panne de pricing-service
+ * (le réplica garde la dernière version reçue, voir pricing.replica.staleness).
+ *
+ * Le réplica suit un seul réplica de pricing-service à la fois: les versions
+ * ne sont comparables qu'au sein d'une même epoch (instance du catalogue). En
+ * cas d'échec, un autre réplica est choisi et l'instantané rechargé
+ * (changement d'epoch, historique dépassé ou catalogue remplacé).
+ *
+ * Tant que le premier instantané n'est pas chargé (ou si
+ * pricing.replication.enabled=false), {@link #find} retourne null et le prix
+ * est résolu par {@link PriceCache}.
+ */
+@Component
+public class PriceReplica {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceReplica.class);
+
+    private final PricingEndpoints pricingEndpoints;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long waitMs;
+    private final long minBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter snapshotCounter;
+    private final Counter errorCounter;
+    private final Timer lagTimer;
+
+    private volatile Catalog catalog;
+    private volatile long version;
+    private volatile long lastSyncMillis;
+    private volatile boolean running;
+    private Thread worker;
+
+    public PriceReplica(
+            PricingEndpoints pricingEndpoints,
+            RestTemplate restTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${pricing.replication.enabled:false}") boolean enabled,
+            @Value("${pricing.replication.wait:3s}") Duration wait,
+            @Value("${pricing.replication.min-backoff:500ms}") Duration minBackoff,
+            @Value("${pricing.replication.max-backoff:30s}") Duration maxBackoff) {
+        this.pricingEndpoints = pricingEndpoints;
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.waitMs = wait.toMillis();
+        this.minBackoffMs = Math.max(1L, minBackoff.toMillis());
+        this.maxBackoffMs = Math.max(minBackoffMs, maxBackoff.toMillis());
+
+        Gauge.builder("pricing.replica.version", this, replica -> replica.version)
+                .description("Version du catalogue de prix appliquée localement")
+                .register(meterRegistry);
+        Gauge.builder("pricing.replica.size", this, PriceReplica::size)
+                .description("Nombre de prix présents dans le réplica local")
+                .register(meterRegistry);
+        Gauge.builder("pricing.replica.staleness", this, PriceReplica::stalenessSeconds)
+                .description("Secondes écoulées depuis la dernière synchronisation réussie avec pricing-service")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.snapshotCounter = Counter.builder("pricing.replica.snapshots")
+                .description("Instantanés du catalogue chargés (démarrage, changement d'epoch, historique dépassé)")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("pricing.replica.errors")
+                .description("Échecs de synchronisation du réplica")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("pricing.replica.lag")
+                .description("Délai entre la publication d'un prix par pricing-service et son application locale")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        logger.info("PriceReplica initialized: enabled={}, wait={}, backoff={}..{}",
+                enabled, wait, minBackoff, maxBackoff);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "price-replica");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Prix répliqué d'un livre (prix par défaut de pricing-service si absent du catalogue)
+     *
+     * @return prix, ou null si le réplica n'est pas encore chargé
+     */
+    public Double find(Long bookId) {
+        Catalog current = catalog;
+        if (current == null) {
+            return null;
+        }
+        Double price = current.prices().get(bookId);
+        return price != null ? price : current.defaultPrice(bookId);
+    }
+
+    private int size() {
+        Catalog current = catalog;
+        return current == null ? 0 : current.prices().size();
+    }
+
+    private double stalenessSeconds() {
+        long last = lastSyncMillis;
+        return last == 0L ? Double.NaN : (System.currentTimeMillis() - last) / 1000.0;
+    }
+
+    private void run() {
+        PricingEndpoints.Endpoint endpoint = null;
+        boolean resync = true;
+        long backoffMs = minBackoffMs;
+        while (running) {
+            try {
+                if (endpoint == null) {
+                    endpoint = pricingEndpoints.choose(null);
+                }
+                if (resync) {
+                    loadSnapshot(endpoint.url());
+                    resync = false;
+                } else {
+                    resync = !applyChanges(endpoint.url());
+                }
+                backoffMs = minBackoffMs;
+            } catch (RuntimeException e) {
+                errorCounter.increment();
+                logger.warn("Price replication from {} failed ({}), retrying in {} ms: {}",
+                        endpoint, e.getClass().getSimpleName(), backoffMs, e.getMessage());
+                // Autre réplica au prochain essai: son epoch diffère, l'instantané doit être rechargé
+                if (endpoint != null && pricingEndpoints.size() > 1) {
+                    endpoint = pricingEndpoints.choose(endpoint);
+                    resync = true;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Charge l'instantané complet et remplace le réplica
+     * Le catalogue courant reste servi pendant le chargement.
+     */
+    private void loadSnapshot(String baseUrl) {
+        long start = System.nanoTime();
+        Snapshot snapshot = restTemplate.execute(baseUrl + "/replication/snapshot", HttpMethod.GET, null,
+                response -> parseSnapshot(new BufferedReader(
+                        new InputStreamReader(response.getBody(), StandardCharsets.UTF_8), 64 * 1024)));
+        if (snapshot == null) {
+            throw new IllegalStateException("Empty price snapshot from " + baseUrl);
+        }
+        catalog = snapshot.catalog();
+        version = snapshot.version();
+        lastSyncMillis = System.currentTimeMillis();
+        snapshotCounter.increment();
+        logger.info("Price replica loaded from {}: epoch={}, version={}, prices={} in {} ms",
+                baseUrl, snapshot.catalog().epoch(), snapshot.version(), snapshot.catalog().prices().size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Snapshot parseSnapshot(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IllegalStateException("Empty price snapshot");
+        }
+        JsonNode header = objectMapper.readTree(line);
+        JsonNode defaultPrice = header.path("defaultPrice");
+        ConcurrentHashMap<Long, Double> prices = new ConcurrentHashMap<>();
+        long entries = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.charAt(0) == '{') {
+                // Ligne de fin: version de l'instantané et nombre d'entrées émises
+                JsonNode trailer = objectMapper.readTree(line);
+                if (trailer.path("entries").asLong() != entries) {
+                    throw new IllegalStateException("Price snapshot entry count mismatch: expected "
+                            + trailer.path("entries").asLong() + ", got " + entries);
+                }
+                Catalog parsed = new Catalog(header.path("epoch").asLong(), prices,
+                        defaultPrice.path("base").asDouble(), defaultPrice.path("step").asDouble(),
+                        defaultPrice.path("modulo").asLong(1));
+                return new Snapshot(parsed, trailer.path("version").asLong());
+            }
+            int comma = line.indexOf(',');
+            prices.put(Long.parseLong(line, 1, comma, 10),
+                    Double.parseDouble(line.substring(comma + 1, line.length() - 1)));
+            entries++;
+        }
+        throw new IOException("Truncated price snapshot after " + entries + " entries");
+    }
+
+    /**
+     * Attend et applique les modifications suivant la version locale
+     *
+     * @return false si l'instantané doit être rechargé
+     */
+    private boolean applyChanges(String baseUrl) {
+        Catalog current = catalog;
+        Changes changes = restTemplate.getForObject(
+                baseUrl + "/replication/changes?epoch={epoch}&since={since}&waitMs={waitMs}",
+                Changes.class, current.epoch(), version, waitMs);
+        if (changes == null) {
+            throw new IllegalStateException("Empty price changes from " + baseUrl);
+        }
+        lastSyncMillis = System.currentTimeMillis();
+        if (changes.reset() || changes.epoch() != current.epoch()) {
+            logger.info("Price replica reset requested by {}: epoch={}, version={}",
+                    baseUrl, changes.epoch(), changes.version());
+            return false;
+        }
+        if (changes.prices() != null && !changes.prices().isEmpty()) {
+            current.prices().putAll(changes.prices());
+            lagTimer.record(Math.max(0L, lastSyncMillis - changes.publishedAt()), TimeUnit.MILLISECONDS);
+            logger.debug("Price replica applied {} changes, version {} -> {}",
+                    changes.prices().size(), version, changes.version());
+        }
+        version = changes.version();
+        return true;
+    }
+
+    /**
+     * Prix répliqués et règle de prix par défaut de pricing-service
+     */
+    private record Catalog(long epoch, ConcurrentHashMap<Long, Double> prices,
+                           double defaultBase, double defaultStep, long defaultModulo) {
+
+        double defaultPrice(long bookId) {
+            return defaultBase + (bookId % defaultModulo) * defaultStep;
+        }
+    }
+
+    private record Snapshot(Catalog catalog, long version) {
+    }
+
+    /**
+     * Réponse de GET /replication/changes
+     */
+    record Changes(long epoch, long version, long publishedAt, boolean reset, Map<Long, Double> prices) {
+    }
+}
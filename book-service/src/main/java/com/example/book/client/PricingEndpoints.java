@@ -0,0 +1,239 @@
+package com.example.book.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Répartition de charge côté client entre les réplicas de pricing-service
+ *
+ * pricing.service.url accepte une liste d'URLs séparées par des virgules.
+ * Chaque appel choisit un réplica par "power of two choices": deux réplicas
+ * tirés au hasard, on garde celui dont le coût (latence EWMA × (appels en
+ * cours + 1)) est le plus faible. Un réplica lent ou saturé reçoit donc
+ * moins de trafic sans qu'une file globale ne soit nécessaire.
+ *
+ * Un échec compte comme une réponse d'au moins pricing.balancer.failure-penalty,
+ * pour qu'un réplica qui répond vite en erreur ne soit pas favorisé.
+ *
+ * L'EWMA d'un réplica décroît vers zéro avec le temps (constante
+ * pricing.balancer.ewma-decay): sans cela, un réplica pénalisé par un
+ * épisode lent ne serait plus jamais choisi, donc jamais remesuré. Après
+ * quelques constantes de temps sans appel, il redevient candidat et le
+ * prochain appel rafraîchit sa mesure.
+ *
+ * Les latences récentes (tous réplicas) servent aussi à calculer le délai
+ * avant une requête de couverture (voir {@link PricingServiceClient}).
+ */
+@Component
+public class PricingEndpoints {
+
+    private static final Logger logger = LoggerFactory.getLogger(PricingEndpoints.class);
+
+    private static final int LATENCY_SAMPLES = 512;
+    private static final int PERCENTILE_REFRESH = 64;
+
+    private final List<Endpoint> endpoints;
+    private final double ewmaAlpha;
+    private final long failurePenaltyNanos;
+    private final double decayNanos;
+
+    // Fenêtre circulaire des dernières latences, percentile recalculé tous les PERCENTILE_REFRESH appels
+    private final long[] latencySamples = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyIndex;
+    private double cachedQuantile = Double.NaN;
+    private long cachedPercentileNanos;
+
+    public PricingEndpoints(
+            MeterRegistry meterRegistry,
+            @Value("${pricing.service.url:http://localhost:8081}") String urls,
+            @Value("${pricing.balancer.ewma-alpha:0.3}") double ewmaAlpha,
+            @Value("${pricing.balancer.failure-penalty:500ms}") Duration failurePenalty,
+            @Value("${pricing.balancer.ewma-decay:10s}") Duration ewmaDecay) {
+        if (ewmaAlpha <= 0 || ewmaAlpha > 1) {
+            throw new IllegalArgumentException("pricing.balancer.ewma-alpha must be in ]0, 1]");
+        }
+        if (ewmaDecay.isNegative() || ewmaDecay.isZero()) {
+            throw new IllegalArgumentException("pricing.balancer.ewma-decay must be positive");
+        }
+        List<Endpoint> parsed = new ArrayList<>();
+        Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                .distinct()
+                .forEach(url -> parsed.add(new Endpoint(url)));
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("pricing.service.url must contain at least one URL");
+        }
+        this.endpoints = List.copyOf(parsed);
+        this.ewmaAlpha = ewmaAlpha;
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.decayNanos = ewmaDecay.toNanos();
+
+        for (Endpoint endpoint : endpoints) {
+            Gauge.builder("pricing.endpoint.inflight", endpoint.inFlight, AtomicInteger::get)
+                    .description("Appels en cours vers un réplica de pricing-service")
+                    .tag("endpoint", endpoint.url)
+                    .register(meterRegistry);
+            Gauge.builder("pricing.endpoint.latency.ewma", endpoint, e -> e.ewmaNanos(System.nanoTime()) / 1_000_000.0)
+                    .description("Latence moyenne mobile d'un réplica de pricing-service (ms)")
+                    .tag("endpoint", endpoint.url)
+                    .register(meterRegistry);
+        }
+        logger.info("PricingEndpoints initialized: endpoints={}, ewmaAlpha={}, failurePenalty={}, ewmaDecay={}",
+                endpoints.stream().map(Endpoint::url).toList(), ewmaAlpha, failurePenalty, ewmaDecay);
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Choisit un réplica (power of two choices)
+     *
+     * @param excluded réplica à éviter si possible (requête de couverture), peut être null
+     * @return réplica le moins coûteux des deux tirés
+     */
+    public Endpoint choose(Endpoint excluded) {
+        int size = endpoints.size();
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+        if (size == 2 && excluded != null) {
+            return endpoints.get(0) == excluded ? endpoints.get(1) : endpoints.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Endpoint a;
+        Endpoint b;
+        do {
+            a = endpoints.get(random.nextInt(size));
+        } while (a == excluded);
+        do {
+            b = endpoints.get(random.nextInt(size));
+        } while (b == a || b == excluded);
+        long now = System.nanoTime();
+        return a.cost(now) <= b.cost(now) ? a : b;
+    }
+
+    /**
+     * Délai avant couverture: percentile des latences récentes (tous réplicas)
+     *
+     * @param quantile percentile visé (ex: 0.95)
+     * @param fallbackNanos délai retourné tant que trop peu d'appels ont été mesurés
+     */
+    public synchronized long latencyPercentileNanos(double quantile, long fallbackNanos) {
+        if (latencyCount < PERCENTILE_REFRESH) {
+            return fallbackNanos;
+        }
+        if (quantile != cachedQuantile) {
+            refreshPercentile(quantile);
+        }
+        return cachedPercentileNanos;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencySamples[latencyIndex] = nanos;
+        latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+        if (latencyCount < LATENCY_SAMPLES) {
+            latencyCount++;
+        }
+        if (latencyIndex % PERCENTILE_REFRESH == 0 && !Double.isNaN(cachedQuantile)) {
+            refreshPercentile(cachedQuantile);
+        }
+    }
+
+    private void refreshPercentile(double quantile) {
+        long[] sorted = Arrays.copyOf(latencySamples, latencyCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        cachedPercentileNanos = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        cachedQuantile = quantile;
+    }
+
+    /**
+     * Réplica de pricing-service et ses statistiques de charge
+     */
+    public final class Endpoint {
+
+        private final String url;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // EWMA à l'instant updatedAtNanos, décrue à la lecture (voir ewmaNanos(long))
+        private double ewmaNanos;
+        private long updatedAtNanos;
+
+        private Endpoint(String url) {
+            this.url = url;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        /**
+         * Signale le début d'un appel
+         *
+         * @return instant de début (System.nanoTime), à passer à {@link #finish}
+         */
+        public long start() {
+            inFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        /**
+         * Signale la fin d'un appel et met à jour la latence moyenne du réplica
+         */
+        public void finish(long startNanos, boolean success) {
+            inFlight.decrementAndGet();
+            long now = System.nanoTime();
+            long elapsed = now - startNanos;
+            long sample = success ? elapsed : Math.max(elapsed, failurePenaltyNanos);
+            synchronized (this) {
+                double ewma = ewmaNanos(now);
+                ewmaNanos = ewma == 0.0 ? sample : ewma + ewmaAlpha * (sample - ewma);
+                updatedAtNanos = now;
+            }
+            if (success) {
+                recordLatency(elapsed);
+            }
+        }
+
+        /**
+         * Signale la fin d'un appel interrompu (perdant d'une couverture), sans mesure de latence
+         */
+        public void cancel() {
+            inFlight.decrementAndGet();
+        }
+
+        /**
+         * @return EWMA décrue exponentiellement depuis la dernière mesure
+         */
+        private synchronized double ewmaNanos(long now) {
+            if (ewmaNanos == 0.0) {
+                return 0.0;
+            }
+            return ewmaNanos * Math.exp(-Math.max(0L, now - updatedAtNanos) / decayNanos);
+        }
+
+        private double cost(long now) {
+            // Un réplica jamais appelé (EWMA nulle) ou inactif depuis longtemps est essayé en priorité
+            return ewmaNanos(now) * (inFlight.get() + 1);
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+    }
+}
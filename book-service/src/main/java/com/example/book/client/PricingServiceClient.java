@@ -1,57 +1,189 @@
 package com.example.book.client;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.functions.Either;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Client HTTP pour appeler le pricing-service
  * Utilise Resilience4j pour la résilience:
  * - Circuit Breaker: coupe les appels si trop d'échecs
  * - Retry: réessaie automatiquement en cas d'échec
- * - Fallback: retourne une valeur par défaut en cas d'échec
+ * 
+ * Le retry est piloté ici plutôt que par annotation: avant chaque nouvelle
+ * tentative, trois garde-fous peuvent l'annuler (pricing.retry.suppressed{reason}):
+ * - circuit_open: le circuit est ouvert, réessayer ne ferait qu'attendre
+ * - deadline: l'attente + une tentative dépasseraient l'échéance de l'appelant ({@link Deadline})
+ * - budget: le budget de retries partagé est épuisé ({@link RetryBudget})
+ * Le circuit breaker s'applique à chaque tentative, les instances "pricing"
+ * (backoff, nombre de tentatives, exceptions) restent configurées dans resilience4j.*.
+ * 
+ * Chaque tentative est envoyée au réplica choisi par {@link PricingEndpoints}.
+ * Avec pricing.hedge.enabled=true, si la réponse tarde au-delà du percentile
+ * pricing.hedge.percentile des latences récentes, une requête de couverture
+ * part vers un autre réplica et la première réponse réussie est retenue,
+ * l'autre requête étant interrompue ({@link AbortHandle}). Le primaire
+ * s'exécute sur le thread appelant, seule la couverture utilise un pool borné.
+ * Une couverture consomme le budget de retries: sous forte charge, on ne
+ * double pas les appels (pricing.hedge{result=sent|won|suppressed}).
+ * 
+ * Les échecs sont propagés à l'appelant: le fallback (dernier prix connu ou
+ * prix par défaut) est géré par {@link PriceCache}, afin qu'un prix de
+ * secours ne soit jamais mis en cache comme un vrai prix.
  */
 @Component
 public class PricingServiceClient {
 
     private static final Logger logger = LoggerFactory.getLogger(PricingServiceClient.class);
-    private static final Double FALLBACK_PRICE = 0.0;
 
     private final RestTemplate restTemplate;
-    private final String pricingServiceUrl;
+    private final PricingEndpoints endpoints;
+    private final Retry retry;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final long minAttemptNanos;
+    private final Counter retriesCounter;
+    private final Counter budgetSuppressedCounter;
+    private final Counter deadlineSuppressedCounter;
+    private final Counter circuitOpenSuppressedCounter;
+    private final Counter deadlineExpiredCounter;
+    private final boolean hedgeEnabled;
+    private final double hedgeQuantile;
+    private final long hedgeMinDelayNanos;
+    private final ScheduledExecutorService hedgeTimer;
+    private final ThreadPoolTaskExecutor hedgeExecutor;
+    private final Counter hedgeSentCounter;
+    private final Counter hedgeWonCounter;
+    private final Counter hedgeSuppressedCounter;
 
     public PricingServiceClient(
             RestTemplate restTemplate,
-            @Value("${pricing.service.url:http://localhost:8081}") String pricingServiceUrl) {
+            RetryRegistry retryRegistry,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            RetryBudget retryBudget,
+            PricingEndpoints endpoints,
+            MeterRegistry meterRegistry,
+            @Value("${pricing.retry.min-attempt-time:100ms}") Duration minAttemptTime,
+            @Value("${pricing.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${pricing.hedge.percentile:0.95}") double hedgeQuantile,
+            @Value("${pricing.hedge.min-delay:10ms}") Duration hedgeMinDelay,
+            @Value("${pricing.hedge.max-concurrent:32}") int hedgeMaxConcurrent) {
+        if (hedgeQuantile <= 0 || hedgeQuantile >= 1) {
+            throw new IllegalArgumentException("pricing.hedge.percentile must be in ]0, 1[");
+        }
         this.restTemplate = restTemplate;
-        this.pricingServiceUrl = pricingServiceUrl;
-        logger.info("PricingServiceClient initialized with URL: {}", pricingServiceUrl);
+        this.endpoints = endpoints;
+        this.retry = retryRegistry.retry("pricing");
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("pricing");
+        this.retryBudget = retryBudget;
+        this.minAttemptNanos = minAttemptTime.toNanos();
+        this.retriesCounter = Counter.builder("pricing.retry.attempts")
+                .description("Retries effectivement tentés vers pricing-service")
+                .register(meterRegistry);
+        this.budgetSuppressedCounter = suppressedCounter(meterRegistry, "budget");
+        this.deadlineSuppressedCounter = suppressedCounter(meterRegistry, "deadline");
+        this.circuitOpenSuppressedCounter = suppressedCounter(meterRegistry, "circuit_open");
+        this.deadlineExpiredCounter = Counter.builder("pricing.deadline.expired")
+                .description("Appels à pricing-service non tentés, échéance déjà dépassée")
+                .register(meterRegistry);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeQuantile = hedgeQuantile;
+        this.hedgeMinDelayNanos = hedgeMinDelay.toNanos();
+        this.hedgeTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "price-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedgeExecutor = new ThreadPoolTaskExecutor();
+        this.hedgeExecutor.setThreadNamePrefix("price-hedge-");
+        this.hedgeExecutor.setCorePoolSize(Math.max(1, hedgeMaxConcurrent));
+        this.hedgeExecutor.setMaxPoolSize(Math.max(1, hedgeMaxConcurrent));
+        this.hedgeExecutor.setQueueCapacity(0);
+        this.hedgeExecutor.setDaemon(true);
+        this.hedgeExecutor.initialize();
+        this.hedgeSentCounter = hedgeCounter(meterRegistry, "sent");
+        this.hedgeWonCounter = hedgeCounter(meterRegistry, "won");
+        this.hedgeSuppressedCounter = hedgeCounter(meterRegistry, "suppressed");
+        logger.info("PricingServiceClient initialized: endpoints={}, hedge={}, hedgePercentile={}",
+                endpoints.size(), hedgeEnabled, hedgeQuantile);
+    }
+
+    private static Counter hedgeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("pricing.hedge")
+                .description("Requêtes de couverture vers un second réplica de pricing-service")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter suppressedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("pricing.retry.suppressed")
+                .description("Retries annulés avant d'être tentés")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Récupère le prix d'un livre depuis le pricing-service, sans échéance
+     *
+     * @see #getPrice(Long, Deadline)
+     */
+    public Double getPrice(Long bookId) {
+        return getPrice(bookId, Deadline.NONE);
     }
 
     /**
      * Récupère le prix d'un livre depuis le pricing-service
-     * Annotations Resilience4j:
-     * - @Retry: réessaie 3 fois avant d'échouer
-     * - @CircuitBreaker: ouvre le circuit après plusieurs échecs consécutifs
+     * - Retry: jusqu'à 3 tentatives, dans la limite du budget et de l'échéance
+     * - Circuit Breaker: ouvre le circuit après plusieurs échecs consécutifs
      * 
-     * @param bookId ID du livre
-     * @return prix du livre ou fallback en cas d'échec
+     * @param bookId   ID du livre
+     * @param deadline échéance de l'appelant
+     * @return prix du livre
+     * @throws RuntimeException si pricing-service est indisponible ou si le circuit est ouvert
      */
-    @Retry(name = "pricing", fallbackMethod = "pricingFallback")
-    @CircuitBreaker(name = "pricing", fallbackMethod = "pricingFallback")
-    public Double getPrice(Long bookId) {
-        String url = pricingServiceUrl + "/price/" + bookId;
-        logger.info("Calling pricing-service: GET {}", url);
+    public Double getPrice(Long bookId, Deadline deadline) {
+        return execute(deadline, () -> fetchPrice(bookId));
+    }
+
+    private Double fetchPrice(Long bookId) {
+        return exchange(baseUrl -> fetchPrice(baseUrl, bookId));
+    }
+
+    private Double fetchPrice(String baseUrl, Long bookId) {
+        String url = baseUrl + "/price/{bookId}";
+        logger.info("Calling pricing-service: GET {}/price/{}", baseUrl, bookId);
 
         try {
+            // URI template: une seule série http.client.requests quel que soit le bookId
             @SuppressWarnings("unchecked")
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+            Map<String, Object> response = restTemplate.getForObject(url, Map.class, bookId);
 
             if (response != null && response.containsKey("price")) {
                 Double price = ((Number) response.get("price")).doubleValue();
@@ -63,27 +195,281 @@ public class PricingServiceClient {
 
         } catch (Exception e) {
             logger.error("Error calling pricing-service for bookId={}: {}", bookId, e.getMessage());
-            throw e; // Laisse Resilience4j gérer le retry/fallback
+            throw e; // Le retry est décidé par execute(), le fallback par PriceCache
         }
     }
 
     /**
-     * Méthode de fallback appelée quand pricing-service est indisponible
-     * Retourne un prix par défaut (0.0) pour permettre la continuation
+     * Récupère les prix d'un lot de livres, sans échéance
+     *
+     * @see #getPrices(Collection, Deadline)
+     */
+    public Map<Long, Double> getPrices(Collection<Long> bookIds) {
+        return getPrices(bookIds, Deadline.NONE);
+    }
+
+    /**
+     * Récupère les prix d'un lot de livres en un seul appel (POST /prices)
+     * Le retry et le circuit breaker s'appliquent au lot entier
      * 
-     * @param bookId    ID du livre
-     * @param throwable exception qui a causé le fallback
-     * @return prix par défaut
+     * @param bookIds  IDs des livres
+     * @param deadline échéance du lot (la plus lointaine de ses appelants)
+     * @return prix par ID de livre
+     * @throws RuntimeException si pricing-service est indisponible ou si le circuit est ouvert
+     */
+    public Map<Long, Double> getPrices(Collection<Long> bookIds, Deadline deadline) {
+        return execute(deadline, () -> fetchPrices(bookIds));
+    }
+
+    private Map<Long, Double> fetchPrices(Collection<Long> bookIds) {
+        return exchange(baseUrl -> fetchPrices(baseUrl, bookIds));
+    }
+
+    private Map<Long, Double> fetchPrices(String baseUrl, Collection<Long> bookIds) {
+        String url = baseUrl + "/prices";
+        logger.info("Calling pricing-service: POST {} ({} bookIds)", url, bookIds.size());
+
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> response = restTemplate.postForObject(url, bookIds, Map.class);
+
+            if (response != null && response.get("prices") instanceof Map<?, ?> rawPrices) {
+                Map<Long, Double> prices = new HashMap<>(rawPrices.size() * 2);
+                rawPrices.forEach((bookId, price) ->
+                        prices.put(Long.valueOf(bookId.toString()), ((Number) price).doubleValue()));
+                logger.info("Received {} prices from pricing-service", prices.size());
+                return prices;
+            }
+
+            throw new RuntimeException("Invalid response from pricing-service");
+
+        } catch (Exception e) {
+            logger.error("Error calling pricing-service for {} bookIds: {}", bookIds.size(), e.getMessage());
+            throw e; // Le retry est décidé par execute()
+        }
+    }
+
+    /**
+     * Une tentative: un réplica choisi par {@link PricingEndpoints}, sur le thread
+     * appelant, plus une requête de couverture vers un autre réplica si la
+     * réponse tarde. La première réponse réussie interrompt l'autre requête.
+     */
+    private <T> T exchange(Function<String, T> request) {
+        PricingEndpoints.Endpoint primary = endpoints.choose(null);
+        if (!hedgeEnabled || endpoints.size() < 2) {
+            return call(primary, request, null);
+        }
+
+        Deadline deadline = Deadline.current();
+        long delayNanos = Math.max(hedgeMinDelayNanos,
+                endpoints.latencyPercentileNanos(hedgeQuantile, hedgeMinDelayNanos));
+        Hedge<T> hedge = new Hedge<>(primary, request, deadline);
+        ScheduledFuture<?> timer = hedgeTimer.schedule(hedge::send,
+                Math.min(delayNanos, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        T result;
+        try {
+            result = hedge.primaryAbort.callWith(() -> call(primary, request, hedge.primaryAbort));
+        } catch (RuntimeException e) {
+            // Échec du primaire, ou primaire interrompu parce que la couverture a répondu
+            timer.cancel(false);
+            return hedge.awaitHedge(e);
+        }
+        timer.cancel(false);
+        hedge.primaryCompleted();
+        return result;
+    }
+
+    private <T> T call(PricingEndpoints.Endpoint endpoint, Function<String, T> request, AbortHandle abort) {
+        long start = endpoint.start();
+        boolean success = false;
+        try {
+            T result = request.apply(endpoint.url());
+            success = true;
+            return result;
+        } finally {
+            if (!success && abort != null && abort.isAborted()) {
+                // Perdant d'une couverture: ni échec ni latence à imputer au réplica
+                endpoint.cancel();
+            } else {
+                endpoint.finish(start, success);
+            }
+        }
+    }
+
+    /**
+     * Requête de couverture d'une tentative
+     *
+     * Envoyée par le minuteur si le primaire n'a pas répondu au bout du délai,
+     * sur le pool borné price-hedge- (pricing.hedge.max-concurrent, sans file):
+     * pool saturé, budget épuisé ou échéance trop proche, la couverture n'est
+     * pas envoyée (pricing.hedge{result=suppressed}).
      */
-    public Double pricingFallback(Long bookId, Throwable throwable) {
-        logger.warn("=== FALLBACK TRIGGERED ===");
-        logger.warn("pricing-service unavailable for bookId={}, using fallback price={}",
-                bookId, FALLBACK_PRICE);
-        logger.warn("Cause: {} - {}",
-                throwable.getClass().getSimpleName(),
-                throwable.getMessage());
-        logger.warn("==========================");
-
-        return FALLBACK_PRICE;
+    private final class Hedge<T> {
+
+        private final PricingEndpoints.Endpoint primary;
+        private final Function<String, T> request;
+        private final Deadline deadline;
+        private final AbortHandle primaryAbort = new AbortHandle();
+        private final AbortHandle hedgeAbort = new AbortHandle();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private boolean sent;
+        private boolean closed;
+        private volatile boolean primarySucceeded;
+
+        private Hedge(PricingEndpoints.Endpoint primary, Function<String, T> request, Deadline deadline) {
+            this.primary = primary;
+            this.request = request;
+            this.deadline = deadline;
+        }
+
+        private synchronized void send() {
+            if (closed) {
+                return;
+            }
+            if (deadline.remainingNanos() < minAttemptNanos || !retryBudget.tryAcquire()) {
+                hedgeSuppressedCounter.increment();
+                return;
+            }
+            try {
+                hedgeExecutor.execute(this::run);
+            } catch (RejectedExecutionException e) {
+                hedgeSuppressedCounter.increment();
+                return;
+            }
+            sent = true;
+            hedgeSentCounter.increment();
+        }
+
+        private void run() {
+            PricingEndpoints.Endpoint secondary = endpoints.choose(primary);
+            logger.debug("Hedging slow call to {} with {}", primary, secondary);
+            try {
+                T value = deadline.callWith(() -> hedgeAbort.callWith(() -> call(secondary, request, hedgeAbort)));
+                result.complete(value);
+                if (!primarySucceeded) {
+                    // Le primaire n'a pas répondu: il est interrompu et l'appelant reprend la main
+                    hedgeWonCounter.increment();
+                    primaryAbort.abort();
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Le primaire a répondu: la couverture n'est plus envoyée, ou est interrompue
+         */
+        private void primaryCompleted() {
+            primarySucceeded = true;
+            synchronized (this) {
+                closed = true;
+            }
+            hedgeAbort.abort();
+        }
+
+        /**
+         * Le primaire a échoué: résultat de la couverture si elle est partie, sinon l'échec du primaire
+         */
+        private T awaitHedge(RuntimeException primaryError) {
+            synchronized (this) {
+                closed = true;
+                if (!sent) {
+                    throw primaryError;
+                }
+            }
+            return await(result);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hedgeTimer.shutdownNow();
+        hedgeExecutor.shutdown();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Restitue l'exception d'origine, pour que retry et circuit breaker la classent correctement
+     */
+    private static RuntimeException unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (error instanceof Error fatal) {
+            throw fatal;
+        }
+        return new IllegalStateException(error);
+    }
+
+    /**
+     * Exécute un appel avec circuit breaker par tentative et retry borné
+     * L'échéance est l'échéance courante du thread pendant chaque tentative,
+     * ce qui borne aussi le timeout de réponse HTTP (voir AppConfig). Une
+     * échéance dépassée échoue immédiatement ({@link DeadlineExceededException}).
+     */
+    private <T> T execute(Deadline deadline, Supplier<T> call) {
+        Retry.Context<T> context = retry.context();
+        for (int attempt = 1; ; attempt++) {
+            if (deadline.isExpired()) {
+                // Échéance déjà dépassée (étape de stock lente...): aucune tentative
+                deadlineExpiredCounter.increment();
+                throw new DeadlineExceededException("Deadline expired before calling pricing-service");
+            }
+            try {
+                T result = deadline.callWith(() -> circuitBreaker.executeSupplier(call));
+                retryBudget.recordSuccess();
+                context.onComplete();
+                return result;
+            } catch (RuntimeException e) {
+                if (isRetryable(e, attempt)) {
+                    Counter suppressed = suppressionReason(e, attempt, deadline);
+                    if (suppressed != null) {
+                        suppressed.increment();
+                        throw e;
+                    }
+                    retriesCounter.increment();
+                }
+                // Attend le backoff configuré, ou relance l'exception si les tentatives sont épuisées
+                context.onRuntimeError(e);
+            }
+        }
+    }
+
+    /**
+     * @return true si la configuration Resilience4j prévoit un retry (tentatives, exceptions)
+     */
+    private boolean isRetryable(RuntimeException e, int attempt) {
+        RetryConfig config = retry.getRetryConfig();
+        return attempt < config.getMaxAttempts() && config.getExceptionPredicate().test(e);
+    }
+
+    /**
+     * @return compteur du garde-fou qui annule le retry, null si le retry peut être tenté
+     */
+    private Counter suppressionReason(RuntimeException e, int attempt, Deadline deadline) {
+        if (e instanceof CallNotPermittedException) {
+            return circuitOpenSuppressedCounter;
+        }
+        long waitNanos = Duration.ofMillis(retry.getRetryConfig().getIntervalBiFunction()
+                .apply(attempt, Either.left(e))).toNanos();
+        if (deadline.remainingNanos() < waitNanos + minAttemptNanos) {
+            logger.debug("Retry suppressed: {} left, backoff {}ms", deadline.remaining(), waitNanos / 1_000_000);
+            return deadlineSuppressedCounter;
+        }
+        if (!retryBudget.tryAcquire()) {
+            logger.debug("Retry suppressed: retry budget exhausted");
+            return budgetSuppressedCounter;
+        }
+        return null;
     }
 }
@@ -0,0 +1,143 @@
+package com.example.book.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Budget de retries partagé par tous les appels à pricing-service
+ *
+ * Sur une fenêtre glissante (pricing.retry.budget.window, découpée en
+ * secondes), le nombre de retries est plafonné à:
+ *   max(ratio × appels réussis, min-per-second × durée de la fenêtre)
+ *
+ * Quand pricing-service est sain, presque tous les retries passent; quand il
+ * sature, les succès se raréfient et le budget s'épuise: les appelants
+ * échouent immédiatement (fallback) au lieu de tripler la charge. Le plancher
+ * garantit quelques retries pour sortir d'un incident ponctuel, même avant
+ * que le circuit breaker ait assez d'échantillons.
+ */
+@Component
+public class RetryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryBudget.class);
+
+    private final double ratio;
+    private final int minRetries;
+    private final int windowSeconds;
+    private final LongSupplier nanoClock;
+
+    // Seau i: seconde (epoch) qu'il couvre, succès et retries de cette seconde
+    private final long[] bucketSeconds;
+    private final long[] successes;
+    private final long[] retries;
+
+    @Autowired
+    public RetryBudget(
+            MeterRegistry meterRegistry,
+            @Value("${pricing.retry.budget.ratio:0.2}") double ratio,
+            @Value("${pricing.retry.budget.min-per-second:1}") int minPerSecond,
+            @Value("${pricing.retry.budget.window:10s}") Duration window) {
+        this(meterRegistry, ratio, minPerSecond, window, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock horloge au format System.nanoTime (remplacée dans les tests)
+     */
+    RetryBudget(MeterRegistry meterRegistry, double ratio, int minPerSecond, Duration window, LongSupplier nanoClock) {
+        if (ratio < 0 || minPerSecond < 0) {
+            throw new IllegalArgumentException("pricing.retry.budget.ratio and min-per-second must be >= 0");
+        }
+        this.ratio = ratio;
+        this.nanoClock = nanoClock;
+        this.windowSeconds = (int) Math.max(1, window.toSeconds());
+        this.minRetries = minPerSecond * windowSeconds;
+        this.bucketSeconds = new long[windowSeconds];
+        this.successes = new long[windowSeconds];
+        this.retries = new long[windowSeconds];
+
+        Gauge.builder("pricing.retry.budget.available", this, RetryBudget::available)
+                .description("Retries encore autorisés sur la fenêtre courante")
+                .register(meterRegistry);
+        Gauge.builder("pricing.retry.budget.ratio", this, RetryBudget::retryRatio)
+                .description("Retries / appels réussis sur la fenêtre courante (amplification)")
+                .register(meterRegistry);
+
+        logger.info("RetryBudget initialized: ratio={}, minPerSecond={}, window={}s", ratio, minPerSecond, windowSeconds);
+    }
+
+    /**
+     * Enregistre un appel réussi (alimente le budget)
+     */
+    public synchronized void recordSuccess() {
+        successes[bucket(nowSeconds())]++;
+    }
+
+    /**
+     * Réserve un retry si le budget le permet
+     *
+     * @return true si le retry peut être tenté (il est alors décompté)
+     */
+    public synchronized boolean tryAcquire() {
+        long now = nowSeconds();
+        if (sum(retries, now) >= allowed(now)) {
+            return false;
+        }
+        retries[bucket(now)]++;
+        return true;
+    }
+
+    /**
+     * @return nombre de retries encore autorisés sur la fenêtre
+     */
+    public synchronized long available() {
+        long now = nowSeconds();
+        return Math.max(0L, allowed(now) - sum(retries, now));
+    }
+
+    synchronized double retryRatio() {
+        long now = nowSeconds();
+        long succeeded = sum(successes, now);
+        return succeeded == 0 ? sum(retries, now) : (double) sum(retries, now) / succeeded;
+    }
+
+    private long allowed(long now) {
+        return Math.max(minRetries, (long) (ratio * sum(successes, now)));
+    }
+
+    /**
+     * Index du seau de la seconde courante, remis à zéro s'il couvrait une seconde expirée
+     */
+    private int bucket(long second) {
+        // L'horloge peut être négative: floorMod garde un index dans [0, windowSeconds[
+        int index = (int) Math.floorMod(second, (long) windowSeconds);
+        if (bucketSeconds[index] != second) {
+            bucketSeconds[index] = second;
+            successes[index] = 0;
+            retries[index] = 0;
+        }
+        return index;
+    }
+
+    private long sum(long[] counts, long now) {
+        long total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (now - bucketSeconds[i] < windowSeconds) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    private long nowSeconds() {
+        // Arrondi vers le bas: autour de zéro, -0.5s et +0.5s ne tombent pas dans la même seconde
+        return Math.floorDiv(nanoClock.getAsLong(), 1_000_000_000L);
+    }
+}
@@ -1,10 +1,30 @@
 package com.example.book.config;
 
+import com.example.book.client.AbortHandle;
+import com.example.book.client.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Configuration de l'application
  * Définit les beans nécessaires comme RestTemplate
@@ -12,15 +32,101 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class AppConfig {
 
+    /**
+     * Client HTTP vers pricing-service avec pool de connexions keep-alive
+     * - Nombre de connexions borné (total et par route)
+     * - Durée de vie maximale des connexions (TTL)
+     * - Éviction en arrière-plan des connexions inactives ou expirées
+     * 
+     * Les métriques du pool (connexions actives/disponibles/en attente) et le
+     * temps d'attente d'une connexion sont exportées via Actuator (httpclient=pricing).
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pricingHttpClient(
+            MeterRegistry meterRegistry,
+            RequestConfig pricingRequestConfig,
+            @Value("${pricing.http.max-connections:200}") int maxConnections,
+            @Value("${pricing.http.max-connections-per-route:50}") int maxConnectionsPerRoute,
+            @Value("${pricing.http.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${pricing.http.read-timeout:5s}") Duration readTimeout,
+            @Value("${pricing.http.connection-ttl:5m}") Duration connectionTtl,
+            @Value("${pricing.http.idle-eviction:30s}") Duration idleEviction) {
+
+        TimedPoolingConnectionManager connectionManager = new TimedPoolingConnectionManager(meterRegistry, "pricing");
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setTimeToLive(TimeValue.of(connectionTtl))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "pricing").bindTo(meterRegistry);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(pricingRequestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .build();
+    }
+
+    /**
+     * Timeouts par défaut d'une requête vers pricing-service
+     */
+    @Bean
+    public RequestConfig pricingRequestConfig(
+            @Value("${pricing.http.read-timeout:5s}") Duration readTimeout,
+            @Value("${pricing.http.connection-request-timeout:2s}") Duration connectionRequestTimeout) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                .setResponseTimeout(Timeout.of(readTimeout))
+                .build();
+    }
+
     /**
      * Bean RestTemplate pour les appels HTTP vers pricing-service
-     * Configuré avec des timeouts raisonnables
+     * Construit via RestTemplateBuilder pour bénéficier des métriques http.client.requests
+     * 
+     * Si l'appel porte une échéance ({@link Deadline#current()}), le timeout de
+     * réponse est réduit au temps restant: une tentative ne survit pas à l'emprunt.
+     * Chaque requête est attachée à l'{@link AbortHandle} courant, pour que la
+     * perdante d'une couverture puisse être interrompue.
      */
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000);
-        factory.setReadTimeout(5000);
-        return new RestTemplate(factory);
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient pricingHttpClient,
+                                     RequestConfig pricingRequestConfig) {
+        long readTimeoutNanos = pricingRequestConfig.getResponseTimeout().toNanoseconds();
+        return builder
+                .requestFactory(() -> {
+                    HttpComponentsClientHttpRequestFactory factory =
+                            new HttpComponentsClientHttpRequestFactory(pricingHttpClient) {
+                                @Override
+                                protected ClassicHttpRequest createHttpUriRequest(HttpMethod method, URI uri) {
+                                    ClassicHttpRequest request = super.createHttpUriRequest(method, uri);
+                                    if (request instanceof Cancellable cancellable) {
+                                        AbortHandle.attach(cancellable);
+                                    }
+                                    return request;
+                                }
+                            };
+                    factory.setHttpContextFactory((method, uri) -> {
+                        Deadline deadline = Deadline.current();
+                        if (deadline.remainingNanos() >= readTimeoutNanos) {
+                            return null;
+                        }
+                        // Arrondi à la milliseconde supérieure: HttpClient tronque le timeout de
+                        // socket en millisecondes, et 0 signifierait une attente infinie
+                        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline.remainingNanos() + 999_999L);
+                        HttpClientContext context = HttpClientContext.create();
+                        context.setRequestConfig(RequestConfig.copy(pricingRequestConfig)
+                                .setResponseTimeout(Timeout.ofMilliseconds(Math.max(1L, remainingMillis)))
+                                .build());
+                        return context;
+                    });
+                    return factory;
+                })
+                .build();
     }
 }
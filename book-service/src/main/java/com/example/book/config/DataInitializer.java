@@ -8,6 +8,8 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 /**
  * Initialisation des données au démarrage
  * Crée quelques livres de test si la base est vide
@@ -23,11 +25,12 @@ public class DataInitializer {
             if (repository.count() == 0) {
                 logger.info("Initializing database with sample books...");
 
-                repository.save(new Book("Clean Code", "Robert C. Martin", 5));
-                repository.save(new Book("Design Patterns", "Gang of Four", 3));
-                repository.save(new Book("The Pragmatic Programmer", "David Thomas", 4));
-                repository.save(new Book("Refactoring", "Martin Fowler", 2));
-                repository.save(new Book("Domain-Driven Design", "Eric Evans", 3));
+                repository.saveAll(List.of(
+                        new Book("Clean Code", "Robert C. Martin", 5),
+                        new Book("Design Patterns", "Gang of Four", 3),
+                        new Book("The Pragmatic Programmer", "David Thomas", 4),
+                        new Book("Refactoring", "Martin Fowler", 2),
+                        new Book("Domain-Driven Design", "Eric Evans", 3)));
 
                 logger.info("Sample books initialized successfully");
                 repository.findAll().forEach(book -> logger.info("Created: {} by {} (stock: {})",
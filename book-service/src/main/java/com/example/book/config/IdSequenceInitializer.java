@@ -0,0 +1,42 @@
+package com.example.book.config;
+
+import com.example.book.entity.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Alignement de la table books_seq sur les IDs existants (MySQL uniquement)
+ * Les bases créées avec l'ancienne stratégie IDENTITY contiennent déjà des
+ * livres: la séquence est avancée au-delà du plus grand ID pour éviter
+ * toute collision de clé primaire.
+ */
+@Configuration
+@ConditionalOnProperty(name = "book.ids.align-sequence-table", havingValue = "true")
+public class IdSequenceInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    CommandLineRunner alignIdSequence(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            // Avec l'optimiseur pooled, la valeur lue est la borne haute du bloc:
+            // max(id) + taille de bloc garantit un premier ID > max(id)
+            int updated = jdbcTemplate.update(
+                    "UPDATE books_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + ? FROM books) "
+                            + "WHERE next_val < (SELECT COALESCE(MAX(id), 0) + ? FROM books)",
+                    Book.ID_ALLOCATION_SIZE, Book.ID_ALLOCATION_SIZE);
+
+            if (updated > 0) {
+                logger.info("books_seq aligned above existing book ids");
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.book.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Aiguillage des connexions JDBC entre la base primaire et un réplica en lecture
+ *
+ * Les transactions en lecture seule (@Transactional(readOnly = true)) lisent
+ * sur le réplica, tout le reste (écritures, verrous, appels hors transaction)
+ * va sur la primaire. La décision est prise à l'obtention de la connexion:
+ * la source doit être enveloppée dans un LazyConnectionDataSourceProxy pour
+ * que la connexion ne soit obtenue qu'à la première requête, une fois le
+ * caractère lecture seule de la transaction connu.
+ *
+ * {@link #onPrimary} force la primaire pour une lecture qui doit voir une
+ * écriture récente (le réplica est en retard de quelques millisecondes à
+ * quelques secondes).
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.<Object, Object>of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.primaryCounter = counter(meterRegistry, Target.PRIMARY);
+        this.replicaCounter = counter(meterRegistry, Target.REPLICA);
+    }
+
+    /**
+     * Exécute une lecture sur la primaire, même dans une transaction en lecture seule
+     * La connexion ne doit pas encore avoir été obtenue dans la transaction en cours.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && FORCE_PRIMARY.get() == null) {
+            replicaCounter.increment();
+            return Target.REPLICA;
+        }
+        primaryCounter.increment();
+        return Target.PRIMARY;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, Target target) {
+        return Counter.builder("book.datasource.connections")
+                .description("Connexions JDBC obtenues, par base (primaire ou réplica en lecture)")
+                .tag("target", target.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.book.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Base primaire + réplica en lecture (book.datasource.replica.enabled=true)
+ *
+ * Remplace la source de données auto-configurée par deux pools Hikari
+ * (primary: spring.datasource.*, replica: book.datasource.replica.*)
+ * derrière un {@link ReadWriteRoutingDataSource}. Le proxy à connexion
+ * différée retarde le choix du pool jusqu'à la première requête de la
+ * transaction.
+ */
+@Configuration
+@ConditionalOnProperty(name = "book.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("book.datasource.replica.hikari")
+    HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${book.datasource.replica.url}") String url,
+            @Value("${book.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${book.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        if (url.isBlank()) {
+            throw new IllegalStateException("book.datasource.replica.url is required when the read replica is enabled");
+        }
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                          @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                          MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routing =
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, meterRegistry);
+        routing.afterPropertiesSet();
+        logger.info("Read replica enabled: read-only transactions routed to the replica pool");
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
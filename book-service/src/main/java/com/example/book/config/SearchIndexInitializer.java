@@ -0,0 +1,41 @@
+package com.example.book.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Création de l'index FULLTEXT utilisé par la recherche (MySQL uniquement)
+ * Hibernate (ddl-auto=update) ne sait pas créer ce type d'index: il est
+ * ajouté au démarrage s'il n'existe pas encore.
+ */
+@Configuration
+@ConditionalOnProperty(name = "book.search.fulltext", havingValue = "true")
+public class SearchIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexInitializer.class);
+    private static final String INDEX_NAME = "ft_books_title_author";
+
+    @Bean
+    CommandLineRunner initSearchIndex(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics "
+                            + "WHERE table_schema = DATABASE() AND table_name = 'books' AND index_name = ?",
+                    Integer.class, INDEX_NAME);
+
+            if (existing != null && existing > 0) {
+                logger.info("Full-text index {} already exists", INDEX_NAME);
+                return;
+            }
+
+            logger.info("Creating full-text index {} on books(title, author)...", INDEX_NAME);
+            jdbcTemplate.execute("CREATE FULLTEXT INDEX " + INDEX_NAME + " ON books (title, author)");
+            logger.info("Full-text index {} created", INDEX_NAME);
+        };
+    }
+}
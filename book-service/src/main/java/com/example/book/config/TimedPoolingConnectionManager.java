@@ -0,0 +1,54 @@
+package com.example.book.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pool de connexions HTTP qui mesure le temps d'attente d'une connexion
+ * (métrique httpcomponents.httpclient.pool.lease, tag httpclient)
+ * Un temps d'attente élevé indique un pool saturé.
+ */
+class TimedPoolingConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final Timer leaseTimer;
+
+    TimedPoolingConnectionManager(MeterRegistry meterRegistry, String poolName) {
+        this.leaseTimer = Timer.builder("httpcomponents.httpclient.pool.lease")
+                .description("Temps d'attente pour obtenir une connexion du pool")
+                .tag("httpclient", poolName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        long start = System.nanoTime();
+        LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                try {
+                    return delegate.get(timeout);
+                } finally {
+                    leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+}
@@ -1,14 +1,37 @@
 package com.example.book.controller;
 
 import com.example.book.entity.Book;
+import com.example.book.metrics.BorrowStats;
+import com.example.book.repository.BookSearchHit;
+import com.example.book.repository.BookView;
+import com.example.book.service.BookImportService;
+import com.example.book.service.BookInventoryService;
+import com.example.book.service.BookPage;
 import com.example.book.service.BookService;
+import com.example.book.service.BorrowQueue;
+import com.example.book.service.BorrowResult;
+import com.example.book.service.BorrowStatus;
+import com.example.book.service.BorrowTicket;
+import com.example.book.service.ImportReport;
+import com.example.book.service.TopBooks;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,34 +40,96 @@ import java.util.Map;
  * Controller REST pour la gestion des livres
  * 
  * Endpoints:
- * - GET /books : liste tous les livres
+ * - GET /books?after=&size= : liste les livres par page (curseur dans X-Next-Cursor)
+ * - GET /books/stream : flux NDJSON de tous les livres
+ * - GET /books/search?q=&page=&size= : recherche par titre/auteur, triée par pertinence
  * - GET /books/{id} : récupère un livre par ID
  * - POST /books : crée un nouveau livre
+ * - POST /books/import : import en masse (CSV ou NDJSON en flux)
  * - PUT /books/{id} : met à jour un livre
  * - DELETE /books/{id} : supprime un livre
- * - POST /books/{id}/borrow : emprunte un livre
- * - GET /books/available : liste les livres disponibles
+ * - POST /books/{id}/borrow : emprunte un livre (ticket 202 si book.borrow.async.enabled)
+ * - GET /books/borrows/{ticket} : issue d'un emprunt asynchrone
+ * - GET /books/stats/top?window=&limit= : titres les plus demandés (1m, 15m, 1h)
+ * - POST /books/{id}/stock-buckets?buckets= : répartit le stock en seaux (mode STRIPED)
+ * - DELETE /books/{id}/stock-buckets : regroupe le stock dans la ligne du livre
+ * - GET /books/available?after=&size= : liste les livres disponibles par page
+ * - GET /books/available/stream : flux NDJSON des livres disponibles
  */
 @RestController
 @RequestMapping("/books")
 public class BookController {
 
     private static final Logger logger = LoggerFactory.getLogger(BookController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookInventoryService bookInventoryService;
+    private final BorrowQueue borrowQueue;
+    private final BorrowStats borrowStats;
+    private final ObjectMapper objectMapper;
+    // Writer des lignes NDJSON: sérialiseur résolu une fois, sans flush après chaque
+    // livre ni séparateur implicite entre valeurs racines (le saut de ligne est écrit à part)
+    private final ObjectWriter bookLineWriter;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImportService bookImportService,
+                          BookInventoryService bookInventoryService, BorrowQueue borrowQueue,
+                          BorrowStats borrowStats, ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookInventoryService = bookInventoryService;
+        this.borrowQueue = borrowQueue;
+        this.borrowStats = borrowStats;
+        this.objectMapper = objectMapper;
+        this.bookLineWriter = objectMapper.writerFor(BookView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator((String) null);
     }
 
     /**
-     * Liste tous les livres
+     * Liste les livres par page (pagination par curseur)
+     * Le curseur de la page suivante est renvoyé dans l'en-tête X-Next-Cursor
+     * (et dans un en-tête Link rel="next"), absent sur la dernière page
      */
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        logger.info("GET /books - Fetching all books");
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookView>> getAllBooks(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int size) {
+        logger.info("GET /books - Fetching books after={} size={}", after, size);
+        return pageResponse(bookService.getAllBooks(after, size));
+    }
+
+    /**
+     * Flux NDJSON de tous les livres (une ligne JSON par livre)
+     * Les livres sont lus et écrits au fil de l'eau, sans matérialiser le catalogue
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        logger.info("GET /books/stream - Streaming all books");
+        return streamResponse(false);
+    }
+
+    /**
+     * Recherche des livres par titre ou auteur
+     * Les résultats sont triés par score de pertinence décroissant
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchBooks(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("GET /books/search - Searching books q='{}'", query);
+
+        if (query.isBlank()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query parameter 'q' must not be blank");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        List<BookSearchHit> hits = bookService.searchBooks(query.trim(), page, size);
+        return ResponseEntity.ok(hits);
     }
 
     /**
@@ -65,10 +150,27 @@ public class BookController {
      * Crée un nouveau livre
      */
     @PostMapping
-    public ResponseEntity<Book> createBook(@Valid @RequestBody Book book) {
+    public ResponseEntity<BookView> createBook(@Valid @RequestBody Book book) {
         logger.info("POST /books - Creating book: {}", book.getTitle());
         Book createdBook = bookService.createBook(book);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdBook);
+        return ResponseEntity.status(HttpStatus.CREATED).body(BookView.of(createdBook));
+    }
+
+    /**
+     * Importe des livres en masse depuis le corps de la requête
+     * Content-Type text/csv (title,author,stock) ou application/x-ndjson
+     * Le corps est traité en flux, par lots insérés en batch JDBC
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        logger.info("POST /books/import - Importing books ({})", contentType);
+        BookImportService.Format format = NDJSON.includes(contentType)
+                ? BookImportService.Format.NDJSON
+                : BookImportService.Format.CSV;
+        ImportReport report = bookImportService.importBooks(body, format);
+        return ResponseEntity.ok(report);
     }
 
     /**
@@ -79,7 +181,7 @@ public class BookController {
         logger.info("PUT /books/{} - Updating book", id);
         try {
             Book updatedBook = bookService.updateBook(id, book);
-            return ResponseEntity.ok(updatedBook);
+            return ResponseEntity.ok(BookView.of(updatedBook));
         } catch (RuntimeException e) {
             logger.error("Error updating book {}: {}", id, e.getMessage());
             Map<String, String> error = new HashMap<>();
@@ -102,18 +204,38 @@ public class BookController {
      * Emprunte un livre
      * Décrémente le stock et récupère le prix depuis pricing-service
      * Utilise un fallback si pricing-service est indisponible
+     *
+     * En mode asynchrone, l'emprunt est placé en file: 202 + ticket (en-tête
+     * Location vers GET /books/borrows/{ticket}), 503 si la file est pleine
      */
     @PostMapping("/{id}/borrow")
-    public ResponseEntity<Map<String, Object>> borrowBook(@PathVariable Long id) {
+    public ResponseEntity<?> borrowBook(@PathVariable Long id) {
         logger.info("POST /books/{}/borrow - Borrowing book", id);
 
-        Map<String, Object> result = bookService.borrowBook(id);
+        if (borrowQueue.isEnabled()) {
+            try {
+                BorrowTicket ticket = borrowQueue.submit(id);
+                return ResponseEntity.accepted()
+                        .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                                .path("/books/borrows/{ticket}")
+                                .buildAndExpand(ticket.getId())
+                                .toUri())
+                        .body(ticket.toResponse());
+            } catch (IllegalStateException e) {
+                BorrowResult rejected = BorrowResult.failure(id, System.currentTimeMillis(),
+                        BorrowStatus.REJECTED, e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(rejected);
+            }
+        }
 
-        Boolean success = (Boolean) result.get("success");
+        BorrowResult result = bookService.borrowBook(id);
 
-        if (success == null || !success) {
-            String status = (String) result.get("status");
-            HttpStatus httpStatus = "NOT_FOUND".equals(status) ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+        if (!result.success()) {
+            HttpStatus httpStatus = switch (result.status()) {
+                case NOT_FOUND -> HttpStatus.NOT_FOUND;
+                case CONFLICT -> HttpStatus.CONFLICT;
+                default -> HttpStatus.BAD_REQUEST;
+            };
             return ResponseEntity.status(httpStatus).body(result);
         }
 
@@ -121,13 +243,131 @@ public class BookController {
     }
 
     /**
-     * Liste les livres disponibles (stock > 0)
+     * Issue d'un emprunt asynchrone: PENDING, puis résultat de l'emprunt
+     * (BORROWED, OUT_OF_STOCK, NOT_FOUND ou FAILED)
+     */
+    @GetMapping("/borrows/{ticket}")
+    public ResponseEntity<BorrowTicket.View> getBorrowTicket(@PathVariable String ticket) {
+        return borrowQueue.getTicket(ticket)
+                .map(found -> ResponseEntity.ok(found.toResponse()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Titres les plus demandés sur une fenêtre glissante (1m, 15m ou 1h)
+     * Classement en mémoire de l'instance, recalculé toutes les 10 secondes
+     */
+    @GetMapping("/stats/top")
+    public ResponseEntity<?> getTopBooks(
+            @RequestParam(defaultValue = "15m") String window,
+            @RequestParam(required = false) Integer limit) {
+        if (!borrowStats.isEnabled()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Borrow statistics are disabled (book.stats.enabled=false)");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+        return BorrowStats.Window.fromTag(window)
+                .<ResponseEntity<?>>map(found -> {
+                    TopBooks top = bookService.getTopBooks(found, limit != null ? limit : borrowStats.getTopK());
+                    return ResponseEntity.ok(top);
+                })
+                .orElseGet(() -> {
+                    Map<String, String> error = new HashMap<>();
+                    error.put("error", "Unknown window '" + window + "', expected 1m, 15m or 1h");
+                    return ResponseEntity.badRequest().body(error);
+                });
+    }
+
+    /**
+     * Répartit le stock d'un livre très demandé entre plusieurs seaux
+     * Les emprunts concurrents du livre verrouillent alors des lignes différentes
+     */
+    @PostMapping("/{id}/stock-buckets")
+    public ResponseEntity<?> stripeStock(@PathVariable Long id, @RequestParam(required = false) Integer buckets) {
+        logger.info("POST /books/{}/stock-buckets - Striping stock (buckets={})", id, buckets);
+        int bucketCount = buckets != null ? buckets : bookInventoryService.getDefaultStockBuckets();
+        try {
+            return bookInventoryService.stripeStock(id, bucketCount)
+                    .map(stock -> ResponseEntity.ok(stockBucketsResponse(id, bucketCount, stock)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            HttpStatus status = e instanceof IllegalStateException ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(error);
+        }
+    }
+
+    /**
+     * Regroupe le stock réparti d'un livre dans sa ligne
+     */
+    @DeleteMapping("/{id}/stock-buckets")
+    public ResponseEntity<?> unstripeStock(@PathVariable Long id) {
+        logger.info("DELETE /books/{}/stock-buckets - Merging stock buckets", id);
+        return bookInventoryService.unstripeStock(id)
+                .map(stock -> ResponseEntity.ok(stockBucketsResponse(id, 0, stock)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static Map<String, Object> stockBucketsResponse(Long id, int buckets, int stock) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("bookId", id);
+        response.put("stockBuckets", buckets);
+        response.put("stock", stock);
+        return response;
+    }
+
+    /**
+     * Liste les livres disponibles (stock > 0) par page
      */
     @GetMapping("/available")
-    public ResponseEntity<List<Book>> getAvailableBooks() {
-        logger.info("GET /books/available - Fetching available books");
-        List<Book> books = bookService.getAvailableBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookView>> getAvailableBooks(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int size) {
+        logger.info("GET /books/available - Fetching available books after={} size={}", after, size);
+        return pageResponse(bookService.getAvailableBooks(after, size));
+    }
+
+    /**
+     * Flux NDJSON des livres disponibles
+     */
+    @GetMapping(value = "/available/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAvailableBooks() {
+        logger.info("GET /books/available/stream - Streaming available books");
+        return streamResponse(true);
+    }
+
+    private ResponseEntity<List<BookView>> pageResponse(BookPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.books());
+    }
+
+    /**
+     * Flux NDJSON: un seul générateur JSON (et son tampon) pour toute la réponse,
+     * au lieu d'un tableau d'octets intermédiaire par livre
+     */
+    private ResponseEntity<StreamingResponseBody> streamResponse(boolean availableOnly) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                bookService.forEachBook(availableOnly, book -> {
+                    try {
+                        bookLineWriter.writeValue(generator, book);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     /**
@@ -1,18 +1,44 @@
 package com.example.book.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Formula;
 
 /**
  * Entité Book représentant un livre en base de données
+ * Mise en cache de second niveau (région books)
+ *
+ * En mode d'emprunt STRIPED, le stock d'un livre peut être réparti entre
+ * plusieurs lignes de book_stock_buckets ({@link StockBucket}): le stock
+ * exposé est alors la somme de la colonne stock et des seaux.
+ *
+ * Les écritures dans les seaux invalident explicitement l'espace de requêtes
+ * books après le commit (voir BookInventoryService), plutôt qu'un @Synchronize:
+ * l'UPDATE en masse d'un seau viderait sinon toute la région books.
  */
 @Entity
-@Table(name = "books")
+@Table(name = Book.TABLE)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 public class Book {
 
+    public static final String TABLE = "books";
+
+    /**
+     * Taille des blocs d'IDs réservés par l'optimiseur pooled
+     * Doit rester égale à l'incrément de la séquence books_seq
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Séquence (table books_seq sur MySQL) avec optimiseur pooled: compatible
+    // avec le batching JDBC, contrairement à IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Le titre est obligatoire")
@@ -27,6 +53,25 @@ public class Book {
     @Column(nullable = false)
     private Integer stock = 0;
 
+    // Version pour le verrouillage optimiste (mode d'emprunt OPTIMISTIC)
+    @Version
+    @JsonIgnore
+    @Column(nullable = false)
+    private long version;
+
+    // Nombre de seaux de stock (mode STRIPED), 0 si tout le stock est dans cette ligne
+    @JsonIgnore
+    @Column(nullable = false)
+    private int stockBuckets;
+
+    // Stock réparti dans les seaux, relu avec la ligne
+    // Sous-requête évaluée seulement pour un livre réparti: 0 sans lecture des seaux sinon
+    @JsonIgnore
+    @Formula("(CASE WHEN stock_buckets > 0"
+            + " THEN (SELECT COALESCE(SUM(s.stock), 0) FROM " + StockBucket.TABLE + " s WHERE s.book_id = id)"
+            + " ELSE 0 END)")
+    private int bucketStock;
+
     // Constructeurs
     public Book() {
     }
@@ -62,14 +107,35 @@ public class Book {
         this.author = author;
     }
 
+    /**
+     * @return stock total: colonne stock et seaux éventuels
+     */
     public Integer getStock() {
-        return stock;
+        return stock == null ? null : stock + bucketStock;
     }
 
     public void setStock(Integer stock) {
         this.stock = stock;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public int getStockBuckets() {
+        return stockBuckets;
+    }
+
+    public void setStockBuckets(int stockBuckets) {
+        this.stockBuckets = stockBuckets;
+    }
+
+    @JsonIgnore
+    public boolean isStriped() {
+        return stockBuckets > 0;
+    }
+
     /**
      * Décrémente le stock de 1
      * 
@@ -89,7 +155,7 @@ public class Book {
                 "id=" + id +
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
-                ", stock=" + stock +
+                ", stock=" + getStock() +
                 '}';
     }
 }
@@ -0,0 +1,89 @@
+package com.example.book.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Seau de stock d'un livre (mode d'emprunt STRIPED)
+ *
+ * Le stock d'un titre très demandé est réparti entre plusieurs lignes:
+ * chaque emprunt ne verrouille qu'un seau, les emprunts concurrents du
+ * même titre ne sont plus sérialisés sur une seule ligne de books.
+ * Volontairement absent du cache de second niveau (mis à jour à chaque emprunt).
+ */
+@Entity
+@Table(name = StockBucket.TABLE)
+@IdClass(StockBucket.Key.class)
+public class StockBucket {
+
+    public static final String TABLE = "book_stock_buckets";
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Id
+    @Column(name = "bucket")
+    private int bucket;
+
+    @Column(nullable = false)
+    private int stock;
+
+    protected StockBucket() {
+    }
+
+    public StockBucket(Long bookId, int bucket, int stock) {
+        this.bookId = bookId;
+        this.bucket = bucket;
+        this.stock = stock;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getBucket() {
+        return bucket;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    /**
+     * Clé composite (livre, numéro de seau)
+     */
+    public static class Key implements Serializable {
+
+        private Long bookId;
+        private int bucket;
+
+        public Key() {
+        }
+
+        public Key(Long bookId, int bucket) {
+            this.bookId = bookId;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && bucket == key.bucket && Objects.equals(bookId, key.bookId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bookId, bucket);
+        }
+    }
+}
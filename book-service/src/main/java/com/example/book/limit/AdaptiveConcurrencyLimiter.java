@@ -0,0 +1,137 @@
+package com.example.book.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concurrence adaptative (algorithme à gradient)
+ *
+ * La limite suit le rapport entre une latence de référence (moyenne mobile
+ * longue) et la latence récente (moyenne sur une fenêtre de WINDOW_SAMPLES
+ * requêtes):
+ *   gradient = clamp(tolerance × référence / récente, 0.5, 1)
+ *   limite   = limite × gradient + √limite
+ * lissé par smoothing. Tant que la latence récente reste sous tolerance ×
+ * référence, la limite croît de √limite; dès qu'une file se forme en aval
+ * (MySQL, pricing-service), la latence monte et la limite baisse jusqu'à
+ * moitié par fenêtre.
+ *
+ * La limite ne croît pas quand moins de la moitié est utilisée: un trafic
+ * faible ne doit pas autoriser un pic soudain bien au-delà de ce qui a été mesuré.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final int WINDOW_SAMPLES = 20;
+    private static final double LONG_WINDOW_ALPHA = 2.0 / (60 + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Fenêtre courante et latence de référence (protégées par this)
+    private long windowNanos;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        if (tolerance < 1 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("tolerance must be >= 1 and smoothing in ]0, 1]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Réserve une place si la limite n'est pas atteinte
+     *
+     * @return true si la requête peut être traitée (appeler ensuite {@link #release})
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libère la place et enregistre la latence observée
+     *
+     * @param rttNanos durée de traitement de la requête
+     */
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        sample(rttNanos, current);
+    }
+
+    /**
+     * Libère la place sans mesure de latence (réponse d'erreur rapide)
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtRelease) {
+        windowNanos += rttNanos;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+        if (windowCount < WINDOW_SAMPLES) {
+            return;
+        }
+
+        double shortRtt = (double) windowNanos / windowCount;
+        int maxInFlight = windowMaxInFlight;
+        windowNanos = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += LONG_WINDOW_ALPHA * (shortRtt - longRttNanos);
+        }
+        // Après une longue dégradation, la référence redescend plus vite que la moyenne mobile
+        if (longRttNanos > 2 * shortRtt) {
+            longRttNanos *= 0.95;
+        }
+
+        int current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        if (next > current && maxInFlight < current / 2) {
+            return;
+        }
+        // Arrondi dans le sens de l'évolution: une petite limite doit pouvoir croître
+        long rounded = (long) (next > current ? Math.ceil(next) : Math.floor(next));
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, rounded));
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimiter[limit=" + limit + ", inFlight=" + inFlight.get() + "]";
+    }
+}
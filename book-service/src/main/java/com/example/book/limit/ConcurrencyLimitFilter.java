@@ -0,0 +1,152 @@
+package com.example.book.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Délestage des requêtes au-delà d'une limite de concurrence adaptative
+ *
+ * Deux limites indépendantes ({@link AdaptiveConcurrencyLimiter}):
+ * - borrow: POST /books/{id}/borrow (verrou de ligne, JDBC, pricing-service)
+ * - read: GET /books, /books/available, /books/search, /books/{id}
+ * Les emprunts lents ne consomment donc pas la capacité des lectures.
+ * Les flux NDJSON et l'import, longs par nature, ne sont pas limités.
+ *
+ * Au-delà de la limite, la requête est refusée immédiatement (503 +
+ * Retry-After) au lieu d'attendre un thread Tomcat ou une connexion JDBC.
+ *
+ * Les réponses 4xx (404 livre introuvable, 400 rupture de stock, 409 conflit
+ * d'emprunt...) libèrent leur place sans mesure de latence: rapides, elles feraient
+ * baisser la latence récente et croître la limite sans rapport avec la
+ * capacité réelle de MySQL ou de pricing-service.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private static final Pattern BORROW_PATH = Pattern.compile("/books/\\d+/borrow");
+    private static final Pattern BOOK_PATH = Pattern.compile("/books/\\d+");
+
+    enum Group {
+        BORROW, READ
+    }
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final Map<Group, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> rejectedCounters = new EnumMap<>(Group.class);
+
+    public ConcurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${book.limit.enabled:false}") boolean enabled,
+            @Value("${book.limit.retry-after:1s}") Duration retryAfter,
+            @Value("${book.limit.tolerance:1.5}") double tolerance,
+            @Value("${book.limit.smoothing:0.2}") double smoothing,
+            @Value("${book.limit.borrow.initial:20}") int borrowInitial,
+            @Value("${book.limit.borrow.min:5}") int borrowMin,
+            @Value("${book.limit.borrow.max:200}") int borrowMax,
+            @Value("${book.limit.read.initial:50}") int readInitial,
+            @Value("${book.limit.read.min:10}") int readMin,
+            @Value("${book.limit.read.max:500}") int readMax) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = Long.toString(Math.max(1L, retryAfter.toSeconds()));
+        limiters.put(Group.BORROW,
+                new AdaptiveConcurrencyLimiter(borrowInitial, borrowMin, borrowMax, tolerance, smoothing));
+        limiters.put(Group.READ,
+                new AdaptiveConcurrencyLimiter(readInitial, readMin, readMax, tolerance, smoothing));
+
+        limiters.forEach((group, limiter) -> {
+            String tag = group.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("book.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Limite de concurrence adaptative courante")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            Gauge.builder("book.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requêtes en cours de traitement")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            rejectedCounters.put(group, Counter.builder("book.concurrency.rejected")
+                    .description("Requêtes refusées (503) au-delà de la limite")
+                    .tag("group", tag)
+                    .register(meterRegistry));
+        });
+        logger.info("ConcurrencyLimitFilter initialized: enabled={}, borrow={}..{}, read={}..{}",
+                enabled, borrowMin, borrowMax, readMin, readMax);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || group(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Group group = group(request);
+        AdaptiveConcurrencyLimiter limiter = limiters.get(group);
+        if (!limiter.tryAcquire()) {
+            rejectedCounters.get(group).increment();
+            reject(response, group);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && isClientError(response.getStatus())) {
+                limiter.releaseWithoutSample();
+            } else {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static boolean isClientError(int status) {
+        return status >= 400 && status < 500;
+    }
+
+    private Group group(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if ("POST".equals(method) && BORROW_PATH.matcher(path).matches()) {
+            return Group.BORROW;
+        }
+        if ("GET".equals(method) && (path.equals("/books") || path.equals("/books/available")
+                || path.equals("/books/search") || BOOK_PATH.matcher(path).matches())) {
+            return Group.READ;
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, Group group) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many concurrent requests\",\"group\":\""
+                + group.name().toLowerCase(Locale.ROOT) + "\"}");
+    }
+}
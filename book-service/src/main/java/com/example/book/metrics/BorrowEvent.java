@@ -0,0 +1,52 @@
+package com.example.book.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Événement JFR: un emprunt complet avec son issue et la durée de chaque étape
+ */
+@Name("com.example.book.Borrow")
+@Label("Borrow")
+@Category({"Book Service", "Borrow"})
+@Description("Emprunt de livre, décomposé par étape")
+@StackTrace(false)
+class BorrowEvent extends Event {
+
+    @Label("Book Id")
+    long bookId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Stock Mode")
+    String stockMode;
+
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Lock")
+    @Timespan(Timespan.NANOSECONDS)
+    long lock;
+
+    @Label("Read")
+    @Timespan(Timespan.NANOSECONDS)
+    long read;
+
+    @Label("Save")
+    @Timespan(Timespan.NANOSECONDS)
+    long save;
+
+    @Label("Commit")
+    @Timespan(Timespan.NANOSECONDS)
+    long commit;
+
+    @Label("Pricing")
+    @Timespan(Timespan.NANOSECONDS)
+    long pricing;
+}
@@ -0,0 +1,86 @@
+package com.example.book.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers par étape d'emprunt: book.borrow.stage{stage, outcome}
+ *
+ * Histogrammes de percentiles publiés (p50/p99/p999 calculables côté Prometheus),
+ * bornés entre 1ms et 30s pour limiter le nombre de buckets.
+ */
+@Component
+public class BorrowMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer[][] timers = new Timer[BorrowStage.values().length][BorrowOutcome.values().length];
+
+    public BorrowMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Enregistre les étapes parcourues et l'emprunt complet, avec son issue
+     */
+    public void record(BorrowTrace trace, BorrowOutcome outcome) {
+        record(trace, outcome, 1);
+    }
+
+    /**
+     * Enregistre un groupe d'emprunts de même issue partageant une trace (file asynchrone)
+     * Les timers comptent chaque emprunt; un seul événement JFR est émis par trace.
+     */
+    public void record(BorrowTrace trace, BorrowOutcome outcome, int count) {
+        long totalNanos = trace.elapsedNanos();
+        for (int i = 0; i < count; i++) {
+            for (BorrowStage stage : BorrowStage.values()) {
+                if (stage != BorrowStage.TOTAL && trace.visited(stage)) {
+                    timer(stage, outcome).record(trace.nanos(stage), TimeUnit.NANOSECONDS);
+                }
+            }
+            timer(BorrowStage.TOTAL, outcome).record(totalNanos, TimeUnit.NANOSECONDS);
+        }
+        if (!trace.claimEvent()) {
+            return;
+        }
+
+        BorrowEvent event = trace.event();
+        event.end();
+        if (event.shouldCommit()) {
+            event.bookId = trace.bookId();
+            event.outcome = outcome.name();
+            event.stockMode = trace.stockMode();
+            event.attempts = trace.attempts();
+            event.lock = trace.nanos(BorrowStage.LOCK);
+            event.read = trace.nanos(BorrowStage.READ);
+            event.save = trace.nanos(BorrowStage.SAVE);
+            event.commit = trace.nanos(BorrowStage.COMMIT);
+            event.pricing = trace.nanos(BorrowStage.PRICING);
+            event.commit();
+        }
+    }
+
+    /**
+     * Timer créé à la première utilisation (seules les combinaisons rencontrées sont exportées)
+     * Une course entre deux threads est sans effet: le registre retourne le même timer.
+     */
+    private Timer timer(BorrowStage stage, BorrowOutcome outcome) {
+        Timer timer = timers[stage.ordinal()][outcome.ordinal()];
+        if (timer == null) {
+            timer = Timer.builder("book.borrow.stage")
+                    .description("Durée des étapes d'un emprunt (verrou, prix, écriture, commit)")
+                    .tag("stage", stage.tag())
+                    .tag("outcome", outcome.name())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+            timers[stage.ordinal()][outcome.ordinal()] = timer;
+        }
+        return timer;
+    }
+}
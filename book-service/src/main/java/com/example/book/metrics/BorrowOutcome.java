@@ -0,0 +1,9 @@
+package com.example.book.metrics;
+
+/**
+ * Issue d'un emprunt, utilisée comme tag des métriques par étape
+ * FALLBACK: emprunt réussi mais prix de secours (dernier prix connu ou prix par défaut)
+ */
+public enum BorrowOutcome {
+    BORROWED, FALLBACK, OUT_OF_STOCK, NOT_FOUND, CONFLICT
+}
@@ -0,0 +1,27 @@
+package com.example.book.metrics;
+
+import java.util.Locale;
+
+/**
+ * Étapes d'un emprunt mesurées par {@link BorrowTrace}
+ *
+ * - LOCK: instruction qui prend le verrou de ligne, attente comprise
+ *   (SELECT ... FOR UPDATE en mode pessimistic, UPDATE conditionnel en mode atomic)
+ * - READ: lecture sans verrou (mode optimistic, relecture en mode atomic)
+ * - SAVE: écriture de l'entité modifiée (flush de l'UPDATE, contrôle de version compris)
+ * - COMMIT: validation de la transaction
+ * - PRICING: résolution du prix (cache, pricing-service avec retries, fallback)
+ * - TOTAL: emprunt complet
+ */
+public enum BorrowStage {
+    LOCK, READ, SAVE, COMMIT, PRICING, TOTAL;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * @return valeur du tag stage
+     */
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.book.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR: une étape d'un emprunt (verrou, lecture, écriture, commit, prix)
+ * Visible sur la ligne de temps du thread, à côté des attentes JDBC et réseau.
+ */
+@Name("com.example.book.BorrowStage")
+@Label("Borrow Stage")
+@Category({"Book Service", "Borrow"})
+@Description("Étape d'un emprunt de livre")
+@StackTrace(false)
+class BorrowStageEvent extends Event {
+
+    @Label("Book Id")
+    long bookId;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Stock Mode")
+    String stockMode;
+}
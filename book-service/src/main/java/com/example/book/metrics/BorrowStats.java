@@ -0,0 +1,436 @@
+package com.example.book.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Titres les plus demandés sur fenêtres glissantes (1m, 15m, 1h)
+ *
+ * Mémoire fixe, quelle que soit la taille du catalogue:
+ * - chaque emprunt incrémente un count-min sketch (DEPTH lignes de width
+ *   compteurs) réparti en bandes par thread: DEPTH incréments atomiques
+ *   sur la bande du thread appelant, sans verrou ni contention sur un titre très demandé;
+ * - toutes les SLOT, un thread dédié transfère les bandes dans un anneau
+ *   d'une heure de tranches, et tient à jour un sketch par fenêtre (ajout
+ *   de la tranche entrante, retrait de la tranche sortante);
+ * - les titres classables sont gardés dans une table bornée de candidats
+ *   (PROBES positions possibles par titre): un titre absent prend la place
+ *   du candidat le moins actif si son activité récente la dépasse.
+ *
+ * Le classement (top-k par fenêtre) est recalculé à chaque tranche: il a
+ * jusqu'à SLOT de retard. Les comptes par titre sont des estimations par
+ * excès (count-min), les totaux par fenêtre sont exacts.
+ *
+ * Sont comptées les demandes d'emprunt d'un livre existant (emprunts
+ * réussis, ruptures de stock, conflits): la demande, pas seulement le stock servi.
+ */
+@Component
+public class BorrowStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(BorrowStats.class);
+
+    /** Durée d'une tranche: granularité des fenêtres et fréquence du classement */
+    public static final Duration SLOT = Duration.ofSeconds(10);
+
+    public enum Window {
+        ONE_MINUTE("1m", 6),
+        FIFTEEN_MINUTES("15m", 90),
+        ONE_HOUR("1h", 360);
+
+        private final String tag;
+        private final int slots;
+
+        Window(String tag, int slots) {
+            this.tag = tag;
+            this.slots = slots;
+        }
+
+        public String tag() {
+            return tag;
+        }
+
+        public static Optional<Window> fromTag(String tag) {
+            for (Window window : values()) {
+                if (window.tag.equalsIgnoreCase(tag)) {
+                    return Optional.of(window);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param bookId  ID du livre
+     * @param borrows demandes d'emprunt estimées sur la fenêtre
+     */
+    public record Entry(long bookId, long borrows) {
+    }
+
+    /**
+     * @param asOf    fin de la dernière tranche prise en compte (epoch millis)
+     * @param borrows total des demandes d'emprunt sur la fenêtre
+     * @param top     titres les plus demandés, par demandes décroissantes
+     */
+    public record Ranking(Window window, long asOf, long borrows, List<Entry> top) {
+    }
+
+    private static final int RING_SLOTS = Window.ONE_HOUR.slots;
+    private static final int DEPTH = 4;
+    private static final int PROBES = 4;
+    private static final long EMPTY = 0L;
+    // Multiplicateurs impairs: une fonction de hachage indépendante par ligne du sketch
+    private static final long[] ROW_SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final boolean enabled;
+    private final int topK;
+    private final int width;
+    private final int columnShift;
+    private final int stripeMask;
+    private final int candidateMask;
+    private final ScheduledExecutorService scheduler;
+
+    // Sketch de la tranche en cours, alterné avec spare à chaque rotation
+    private volatile Head head;
+    private Head spare;
+
+    // État des fenêtres, modifié par le seul thread de rotation
+    private final int[][] ring;
+    private final long[] ringTotals = new long[RING_SLOTS];
+    private final long[][] windowCounts = new long[Window.values().length][];
+    private final long[] windowTotals = new long[Window.values().length];
+    private long tick;
+
+    // Table des candidats: bookId (EMPTY si libre) et activité (demandes par heure, estimée à la rotation)
+    private final AtomicLongArray candidates;
+    private final AtomicLongArray candidateScores;
+
+    private volatile Map<Window, Ranking> rankings;
+    private final MultiGauge topGauge;
+
+    public BorrowStats(
+            MeterRegistry meterRegistry,
+            @Value("${book.stats.enabled:true}") boolean enabled,
+            @Value("${book.stats.top-k:10}") int topK,
+            @Value("${book.stats.candidates:1024}") int candidateCount,
+            @Value("${book.stats.sketch-width:512}") int sketchWidth) {
+        this.enabled = enabled;
+        this.topK = Math.max(1, topK);
+        this.width = powerOfTwo(Math.max(16, sketchWidth));
+        this.columnShift = Long.SIZE - Integer.numberOfTrailingZeros(width);
+        int stripes = powerOfTwo(Math.min(16, Runtime.getRuntime().availableProcessors()));
+        this.stripeMask = stripes - 1;
+        int candidateCapacity = powerOfTwo(Math.max(PROBES, candidateCount));
+        this.candidateMask = candidateCapacity - 1;
+
+        int cells = enabled ? DEPTH * width : 0;
+        this.head = new Head(stripes * cells);
+        this.spare = new Head(stripes * cells);
+        this.ring = new int[enabled ? RING_SLOTS : 0][cells];
+        for (Window window : Window.values()) {
+            windowCounts[window.ordinal()] = new long[cells];
+        }
+        this.candidates = new AtomicLongArray(enabled ? candidateCapacity : 0);
+        this.candidateScores = new AtomicLongArray(enabled ? candidateCapacity : 0);
+        this.rankings = emptyRankings(System.currentTimeMillis());
+
+        for (Window window : Window.values()) {
+            Gauge.builder("book.borrow.window.requests", this, stats -> stats.rankings.get(window).borrows())
+                    .description("Demandes d'emprunt sur la fenêtre glissante")
+                    .tag("window", window.tag())
+                    .register(meterRegistry);
+        }
+        this.topGauge = MultiGauge.builder("book.borrow.top")
+                .description("Demandes d'emprunt estimées des titres les plus demandés, par fenêtre")
+                .register(meterRegistry);
+
+        if (enabled) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "borrow-stats");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long slotMillis = SLOT.toMillis();
+            scheduler.scheduleAtFixedRate(this::rotateSafely, slotMillis, slotMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+        logger.info("BorrowStats initialized: enabled={}, topK={}, sketch={}x{}, stripes={}, candidates={}",
+                enabled, this.topK, DEPTH, width, stripes, candidateCapacity);
+    }
+
+    /**
+     * Compte des demandes d'emprunt d'un livre (chemin critique de l'emprunt)
+     *
+     * @param bookId ID du livre
+     * @param count  nombre de demandes
+     */
+    public void record(long bookId, int count) {
+        if (!enabled || count <= 0) {
+            return;
+        }
+        Head current = head;
+        int base = stripe() * DEPTH * width;
+        long hash = mix(bookId);
+        for (int row = 0; row < DEPTH; row++) {
+            current.cells.getAndAdd(base + row * width + column(hash, row), count);
+        }
+        current.total.add(count);
+        admit(bookId, hash, current);
+    }
+
+    /**
+     * @return classement de la fenêtre à la dernière rotation
+     */
+    public Ranking getRanking(Window window) {
+        return rankings.get(window);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * Fait entrer un titre dans la table des candidats s'il n'y est pas
+     * Chemin rapide: le titre est déjà candidat (au plus PROBES lectures).
+     */
+    private void admit(long bookId, long hash, Head current) {
+        int start = (int) (hash >>> 32) & candidateMask;
+        int victim = -1;
+        long victimKey = EMPTY;
+        long victimScore = Long.MAX_VALUE;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int index = (start + probe) & candidateMask;
+            long key = candidates.get(index);
+            if (key == bookId) {
+                return;
+            }
+            if (key == EMPTY) {
+                if (candidates.compareAndSet(index, EMPTY, bookId) || candidates.get(index) == bookId) {
+                    return;
+                }
+                continue;
+            }
+            long score = candidateScores.get(index);
+            if (score < victimScore) {
+                victim = index;
+                victimKey = key;
+                victimScore = score;
+            }
+        }
+        // Activité récente du titre, ramenée à l'heure comme le score des candidats
+        long recentScore = estimate(current, hash) * RING_SLOTS;
+        if (victim >= 0 && recentScore > victimScore && candidates.compareAndSet(victim, victimKey, bookId)) {
+            candidateScores.set(victim, recentScore);
+        }
+    }
+
+    private void rotateSafely() {
+        try {
+            rotate();
+        } catch (RuntimeException e) {
+            logger.error("Borrow statistics rotation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Clôt la tranche en cours: transfert des bandes dans l'anneau, mise à
+     * jour des fenêtres, puis du classement
+     * Appelé par le thread de rotation (ou directement par les tests, planificateur arrêté).
+     */
+    void rotate() {
+        Head retired = head;
+        head = spare;
+        spare = retired;
+
+        int slot = (int) (tick % RING_SLOTS);
+        // Retire d'abord les tranches sortantes (pour 1h, celle que la nouvelle tranche remplace)
+        for (Window window : Window.values()) {
+            int expired = (int) Math.floorMod(tick - window.slots, (long) RING_SLOTS);
+            subtract(windowCounts[window.ordinal()], ring[expired]);
+            windowTotals[window.ordinal()] -= ringTotals[expired];
+        }
+
+        // Les incréments arrivés après le transfert restent dans les bandes et
+        // seront comptés à la prochaine rotation de ce sketch
+        int[] cells = ring[slot];
+        int stripeCells = cells.length;
+        for (int i = 0; i < stripeCells; i++) {
+            int sum = 0;
+            for (int offset = i; offset < retired.cells.length(); offset += stripeCells) {
+                sum += retired.cells.getAndSet(offset, 0);
+            }
+            cells[i] = sum;
+        }
+        ringTotals[slot] = retired.total.sumThenReset();
+        for (Window window : Window.values()) {
+            add(windowCounts[window.ordinal()], cells);
+            windowTotals[window.ordinal()] += ringTotals[slot];
+        }
+        tick++;
+
+        refreshRankings(System.currentTimeMillis());
+    }
+
+    private void refreshRankings(long now) {
+        Map<Window, PriorityQueue<Entry>> heaps = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            heaps.put(window, new PriorityQueue<>(topK + 1, Comparator.comparingLong(Entry::borrows)));
+        }
+        Set<Long> seen = new HashSet<>();
+        for (int index = 0; index < candidates.length(); index++) {
+            long bookId = candidates.get(index);
+            if (bookId == EMPTY || !seen.add(bookId)) {
+                continue;
+            }
+            long hash = mix(bookId);
+            long score = 0;
+            for (Window window : Window.values()) {
+                long borrows = estimate(windowCounts[window.ordinal()], hash);
+                score = Math.max(score, borrows * RING_SLOTS / window.slots);
+                if (borrows > 0) {
+                    PriorityQueue<Entry> heap = heaps.get(window);
+                    heap.offer(new Entry(bookId, borrows));
+                    if (heap.size() > topK) {
+                        heap.poll();
+                    }
+                }
+            }
+            candidateScores.set(index, score);
+        }
+
+        Map<Window, Ranking> refreshed = new EnumMap<>(Window.class);
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (Window window : Window.values()) {
+            List<Entry> top = new ArrayList<>(heaps.get(window));
+            top.sort(Comparator.comparingLong(Entry::borrows).reversed());
+            refreshed.put(window, new Ranking(window, now, windowTotals[window.ordinal()], List.copyOf(top)));
+            for (Entry entry : top) {
+                rows.add(MultiGauge.Row.of(
+                        Tags.of("window", window.tag(), "bookId", Long.toString(entry.bookId())), entry.borrows()));
+            }
+        }
+        rankings = refreshed;
+        topGauge.register(rows, true);
+    }
+
+    private Map<Window, Ranking> emptyRankings(long now) {
+        Map<Window, Ranking> empty = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            empty.put(window, new Ranking(window, now, 0, List.of()));
+        }
+        return empty;
+    }
+
+    /**
+     * Estimation count-min sur un sketch de fenêtre: minimum des DEPTH compteurs du titre
+     */
+    private long estimate(long[] counts, long hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counts[row * width + column(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Estimation sur la tranche en cours, toutes bandes confondues
+     */
+    private long estimate(Head current, long hash) {
+        int stripeCells = DEPTH * width;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int cell = row * width + column(hash, row);
+            long sum = 0;
+            for (int offset = cell; offset < current.cells.length(); offset += stripeCells) {
+                sum += current.cells.get(offset);
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    private int column(long hash, int row) {
+        return (int) ((hash * ROW_SEEDS[row]) >>> columnShift);
+    }
+
+    /**
+     * Bande du thread appelant: les threads d'un pool se répartissent entre les bandes
+     */
+    private int stripe() {
+        return (int) mix(Thread.currentThread().getId()) & stripeMask;
+    }
+
+    // Finaliseur de SplitMix64: IDs séquentiels répartis sur tous les bits
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void add(long[] counts, int[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            counts[i] += cells[i];
+        }
+    }
+
+    private static void subtract(long[] counts, int[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            counts[i] -= cells[i];
+        }
+    }
+
+    private static int powerOfTwo(int value) {
+        int bounded = Math.max(1, Math.min(value, 1 << 20));
+        return bounded == 1 ? 1 : Integer.highestOneBit(bounded - 1) << 1;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Sketch d'une tranche: stripes bandes de DEPTH × width compteurs, contiguës
+     */
+    private static final class Head {
+        final AtomicIntegerArray cells;
+        final LongAdder total = new LongAdder();
+
+        Head(int length) {
+            this.cells = new AtomicIntegerArray(length);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.book.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Durées des étapes d'un emprunt en cours
+ *
+ * Créé au début de l'emprunt, alimenté par les services, puis transmis à
+ * {@link BorrowMetrics#record} une fois l'issue connue (les timers sont tagués
+ * par issue). Chaque étape émet aussi un événement JFR. Les durées d'une même
+ * étape s'additionnent (tentatives successives en mode optimistic).
+ * Non thread-safe: un emprunt s'exécute sur un seul thread à la fois (un
+ * emprunt de la file asynchrone termine sa résolution de prix sur le thread
+ * qui complète le prix).
+ */
+public final class BorrowTrace {
+
+    private final long bookId;
+    private final String stockMode;
+    private final long startNanos = System.nanoTime();
+    private final long[] stageNanos = new long[BorrowStage.values().length];
+    private final boolean[] visited = new boolean[BorrowStage.values().length];
+    private final BorrowEvent event = new BorrowEvent();
+    private int attempts;
+    private boolean eventClaimed;
+
+    public BorrowTrace(long bookId, String stockMode) {
+        this.bookId = bookId;
+        this.stockMode = stockMode;
+        event.begin();
+    }
+
+    /**
+     * Mesure une étape
+     */
+    public <T> T time(BorrowStage stage, Supplier<T> action) {
+        StageTimer timer = begin(stage);
+        try {
+            return action.get();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Démarre une étape dont la fin est hors de portée d'un bloc (ex: commit)
+     */
+    public StageTimer begin(BorrowStage stage) {
+        return new StageTimer(stage);
+    }
+
+    /**
+     * Signale une nouvelle tentative de décrémentation (mode optimistic)
+     */
+    public void attempt() {
+        attempts++;
+    }
+
+    long bookId() {
+        return bookId;
+    }
+
+    String stockMode() {
+        return stockMode;
+    }
+
+    int attempts() {
+        return attempts;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    boolean visited(BorrowStage stage) {
+        return visited[stage.ordinal()];
+    }
+
+    long nanos(BorrowStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    BorrowEvent event() {
+        return event;
+    }
+
+    /**
+     * @return true au premier appel seulement: l'événement JFR de l'emprunt n'est émis qu'une fois
+     */
+    boolean claimEvent() {
+        if (eventClaimed) {
+            return false;
+        }
+        eventClaimed = true;
+        return true;
+    }
+
+    /**
+     * Étape en cours de mesure
+     */
+    public final class StageTimer {
+
+        private final BorrowStage stage;
+        private final long begin = System.nanoTime();
+        private final BorrowStageEvent stageEvent = new BorrowStageEvent();
+
+        private StageTimer(BorrowStage stage) {
+            this.stage = stage;
+            stageEvent.begin();
+        }
+
+        public void stop() {
+            stageNanos[stage.ordinal()] += System.nanoTime() - begin;
+            visited[stage.ordinal()] = true;
+            stageEvent.end();
+            if (stageEvent.shouldCommit()) {
+                stageEvent.bookId = bookId;
+                stageEvent.stage = stage.tag();
+                stageEvent.stockMode = stockMode;
+                stageEvent.commit();
+            }
+        }
+    }
+}
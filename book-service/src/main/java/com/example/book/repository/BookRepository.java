@@ -1,22 +1,37 @@
 package com.example.book.repository;
 
 import com.example.book.entity.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 /**
  * Repository JPA pour l'entité Book
+ *
+ * Les requêtes de liste et de flux renvoient des projections ({@link BookView},
+ * {@link BookSearchHit}): seules les lectures par ID et les écritures chargent l'entité.
  */
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    // Expression constructeur de BookView (stock total: colonne et seaux)
+    String VIEW = "new com.example.book.repository.BookView(b.id, b.title, b.author, b.stock + b.bucketStock)";
+
+    // Livre disponible: la colonne stock est testée d'abord, les seaux seulement pour un livre réparti
+    String AVAILABLE = "(b.stock > 0 OR b.bucketStock > 0)";
+
     /**
      * Recherche un livre par son titre (insensible à la casse)
      */
@@ -32,6 +47,70 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      */
     List<Book> findByStockGreaterThan(Integer stock);
 
+    /**
+     * Recherche plein texte sur titre et auteur (MySQL, index FULLTEXT ft_books_title_author)
+     * Résultats triés par pertinence décroissante
+     */
+    @Query(value = """
+            SELECT b.id AS id, b.title AS title, b.author AS author,
+                   b.stock + CASE WHEN b.stock_buckets > 0
+                                  THEN (SELECT COALESCE(SUM(s.stock), 0) FROM book_stock_buckets s WHERE s.book_id = b.id)
+                                  ELSE 0 END AS stock,
+                   MATCH(b.title, b.author) AGAINST (:query IN NATURAL LANGUAGE MODE) AS score
+            FROM books b
+            WHERE MATCH(b.title, b.author) AGAINST (:query IN NATURAL LANGUAGE MODE)
+            ORDER BY score DESC, b.id
+            """, nativeQuery = true)
+    List<BookSearchHit> searchFullText(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Recherche portable (H2) par motif LIKE, un titre correspondant pesant plus qu'un auteur
+     */
+    @Query("""
+            SELECT b.id AS id, b.title AS title, b.author AS author, b.stock + b.bucketStock AS stock,
+                   (CASE WHEN LOWER(b.title) LIKE :pattern ESCAPE '\\' THEN 2 ELSE 0 END
+                    + CASE WHEN LOWER(b.author) LIKE :pattern ESCAPE '\\' THEN 1 ELSE 0 END) AS score
+            FROM Book b
+            WHERE LOWER(b.title) LIKE :pattern ESCAPE '\\' OR LOWER(b.author) LIKE :pattern ESCAPE '\\'
+            ORDER BY score DESC, b.id
+            """)
+    List<BookSearchHit> searchByPattern(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Page de livres après un curseur (pagination keyset sur la clé primaire)
+     * Résultat mis en cache de requêtes, invalidé à chaque modification de la table books
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("SELECT " + VIEW + " FROM Book b WHERE b.id > :after ORDER BY b.id")
+    List<BookView> findViewsAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Page de livres disponibles après un curseur (mise en cache de requêtes)
+     * Le stock disponible inclut les seaux de stock (mode STRIPED)
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("SELECT " + VIEW + " FROM Book b WHERE b.id > :after AND " + AVAILABLE + " ORDER BY b.id")
+    List<BookView> findAvailableAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Vues d'un ensemble de livres (classement des titres les plus demandés)
+     */
+    @Query("SELECT " + VIEW + " FROM Book b WHERE b.id IN :ids")
+    List<BookView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lot de livres après un curseur, pour les flux NDJSON
+     * Hors cache de requêtes: un parcours complet ne ferait qu'en évincer les pages lues
+     */
+    @Query("SELECT " + VIEW + " FROM Book b WHERE b.id > :after ORDER BY b.id")
+    List<BookView> findChunkAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Lot de livres disponibles après un curseur, pour les flux NDJSON
+     */
+    @Query("SELECT " + VIEW + " FROM Book b WHERE b.id > :after AND " + AVAILABLE + " ORDER BY b.id")
+    List<BookView> findAvailableChunkAfter(@Param("after") Long after, Pageable pageable);
+
     /**
      * Recherche un livre avec verrouillage pessimiste pour les transactions
      * Utilisé pour éviter les race conditions lors de l'emprunt
@@ -39,4 +118,13 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT b FROM Book b WHERE b.id = :id")
     Optional<Book> findByIdWithLock(@Param("id") Long id);
+
+    /**
+     * Relit un livre depuis la base, sans passer par le cache de second niveau
+     * Utilisé par l'emprunt optimiste: une version périmée lue depuis le cache
+     * (autre instance) ferait échouer toutes les tentatives. Utilisé aussi par
+     * l'emprunt atomique, dont l'UPDATE JDBC n'est pas vu par le cache
+     */
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findFreshById(@Param("id") Long id);
 }
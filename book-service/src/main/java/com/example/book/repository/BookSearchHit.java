@@ -0,0 +1,17 @@
+package com.example.book.repository;
+
+/**
+ * Projection d'un résultat de recherche, avec son score de pertinence
+ */
+public interface BookSearchHit {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    Integer getStock();
+
+    Double getScore();
+}
@@ -0,0 +1,19 @@
+package com.example.book.repository;
+
+import com.example.book.entity.Book;
+
+/**
+ * Livre tel qu'exposé par l'API (listes, flux NDJSON, lecture par ID)
+ *
+ * Les requêtes de liste construisent directement cette vue (expression
+ * constructeur JPQL): aucune entité n'est chargée ni suivie par le contexte
+ * de persistance.
+ *
+ * @param stock stock total, seaux de stock compris
+ */
+public record BookView(Long id, String title, String author, Integer stock) {
+
+    public static BookView of(Book book) {
+        return new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getStock());
+    }
+}
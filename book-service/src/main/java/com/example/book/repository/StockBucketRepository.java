@@ -0,0 +1,50 @@
+package com.example.book.repository;
+
+import com.example.book.entity.StockBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.List;
+
+/**
+ * Repository JPA des seaux de stock (mode d'emprunt STRIPED)
+ */
+@Repository
+public interface StockBucketRepository extends JpaRepository<StockBucket, StockBucket.Key> {
+
+    /**
+     * Lecture sans verrou des seaux d'un livre (choix d'un seau non vide)
+     */
+    List<StockBucket> findByBookIdOrderByBucket(Long bookId);
+
+    /**
+     * Verrouille tous les seaux d'un livre, toujours dans le même ordre (rééquilibrage)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StockBucket s WHERE s.bookId = :bookId ORDER BY s.bucket")
+    List<StockBucket> findByBookIdForUpdate(@Param("bookId") Long bookId);
+
+    /**
+     * Stock total réparti dans les seaux d'un livre
+     */
+    @Query("SELECT COALESCE(SUM(s.stock), 0) FROM StockBucket s WHERE s.bookId = :bookId")
+    int sumStock(@Param("bookId") Long bookId);
+
+    /**
+     * Décrémente un seau de façon atomique, seule sa ligne est verrouillée
+     *
+     * @return nombre de lignes modifiées (0 si le seau est vide)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockBucket s SET s.stock = s.stock - 1 WHERE s.bookId = :bookId AND s.bucket = :bucket AND s.stock > 0")
+    int decrementIfAvailable(@Param("bookId") Long bookId, @Param("bucket") int bucket);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM StockBucket s WHERE s.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -0,0 +1,218 @@
+package com.example.book.service;
+
+import com.example.book.entity.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Import en masse de livres depuis un flux CSV ou NDJSON
+ *
+ * - Le flux est lu ligne par ligne: le fichier n'est jamais chargé en mémoire
+ * - Les livres sont insérés par lots (book.import.chunk-size), un lot par
+ *   transaction, avec batching JDBC (hibernate.jdbc.batch_size)
+ * - Le contexte de persistance est vidé après chaque lot et le cache de second
+ *   niveau n'est pas alimenté, pour garder une empreinte mémoire constante
+ * - La progression est journalisée à chaque lot et comptée dans books.import.rows
+ *
+ * Format CSV: title,author,stock (ligne d'en-tête optionnelle, champs entre
+ * guillemets autorisés). Format NDJSON: un objet {"title","author","stock"} par ligne.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final String CSV_HEADER = "title,author,stock";
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final Counter importedCounter;
+    private final Counter rejectedCounter;
+
+    public BookImportService(
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            Validator validator,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${book.import.chunk-size:1000}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.importedCounter = Counter.builder("books.import.rows")
+                .description("Lignes traitées par l'import en masse")
+                .tag("result", "imported")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("books.import.rows")
+                .description("Lignes traitées par l'import en masse")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Importe les livres lus depuis le flux
+     *
+     * @param input  contenu CSV ou NDJSON
+     * @param format format du contenu
+     * @return bilan de l'import
+     */
+    public ImportReport importBooks(InputStream input, Format format) throws IOException {
+        logger.info("=== BULK IMPORT START ({}) ===", format);
+        long start = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        long lineNumber = 0;
+        List<String> errors = new ArrayList<>();
+        List<Book> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                    continue;
+                }
+
+                try {
+                    chunk.add(parse(line, format));
+                } catch (IllegalArgumentException | IOException e) {
+                    rejected++;
+                    rejectedCounter.increment();
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("line " + lineNumber + ": " + e.getMessage());
+                    }
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    imported += persistChunk(chunk);
+                    logProgress(imported, rejected, start);
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            imported += persistChunk(chunk);
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = durationMs > 0 ? imported * 1000.0 / durationMs : imported;
+        logger.info("=== BULK IMPORT DONE: {} imported, {} rejected in {} ms ({} rows/s) ===",
+                imported, rejected, durationMs, Math.round(rowsPerSecond));
+
+        return new ImportReport(imported, rejected, durationMs, rowsPerSecond, errors);
+    }
+
+    /**
+     * Insère un lot dans sa propre transaction puis vide le contexte de persistance
+     */
+    private int persistChunk(List<Book> chunk) {
+        int size = chunk.size();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            chunk.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        chunk.clear();
+        importedCounter.increment(size);
+        return size;
+    }
+
+    private void logProgress(long imported, long rejected, long start) {
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        logger.info("Import progress: {} imported, {} rejected ({} rows/s)",
+                imported, rejected, imported * 1000 / elapsedMs);
+    }
+
+    private Book parse(String line, Format format) throws IOException {
+        Book book = format == Format.NDJSON ? objectMapper.readValue(line, Book.class) : parseCsv(line);
+        book.setId(null);
+
+        Set<ConstraintViolation<Book>> violations = validator.validate(book);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+        return book;
+    }
+
+    /**
+     * En-tête exact "title,author,stock" (casse, espaces et BOM UTF-8 ignorés):
+     * un livre dont le titre commence par "title" reste une ligne de données
+     */
+    private static boolean isCsvHeader(String line) {
+        String normalized = line.replace("\uFEFF", "").replace(" ", "").trim().toLowerCase(Locale.ROOT);
+        return normalized.equals(CSV_HEADER);
+    }
+
+    /**
+     * Découpe une ligne CSV (RFC 4180 sur une seule ligne: guillemets et "" échappés)
+     */
+    private static Book parseCsv(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString().trim());
+
+        if (fields.size() != 3) {
+            throw new IllegalArgumentException("expected 3 fields (title,author,stock) but got " + fields.size());
+        }
+
+        try {
+            return new Book(fields.get(0), fields.get(1), Integer.parseInt(fields.get(2)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid stock '" + fields.get(2) + "'");
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package com.example.book.service;
+
+import com.example.book.entity.Book;
+import com.example.book.entity.StockBucket;
+import com.example.book.metrics.BorrowStage;
+import com.example.book.metrics.BorrowTrace;
+import com.example.book.repository.BookRepository;
+import com.example.book.repository.StockBucketRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Service transactionnel de gestion du stock
+ * Isole la partie transactionnelle de l'emprunt afin que la transaction reste
+ * courte (aucun appel réseau n'est effectué pendant qu'elle est ouverte)
+ *
+ * Quatre stratégies sont disponibles (book.borrow.stock-mode):
+ * - PESSIMISTIC: SELECT ... FOR UPDATE puis UPDATE
+ * - ATOMIC: un seul UPDATE conditionnel, la base arbitre la concurrence
+ * - OPTIMISTIC: lecture sans verrou, contrôle de version et retries bornés
+ * - STRIPED: comme ATOMIC, mais le stock d'un livre réparti ({@link #stripeStock})
+ *   est décrémenté dans un seau tiré au hasard ({@link StockBucket})
+ *
+ * Chaque tentative s'exécute dans sa propre transaction (TransactionTemplate)
+ * pour permettre de rejouer un conflit optimiste sur une transaction neuve.
+ *
+ * Les étapes (verrou, lecture, écriture, commit) sont mesurées dans le
+ * {@link BorrowTrace} de l'emprunt.
+ */
+@Service
+public class BookInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookInventoryService.class);
+
+    /**
+     * Nombre maximal de seaux par livre
+     */
+    public static final int MAX_STOCK_BUCKETS = 256;
+
+    // UPDATE conditionnel du mode ATOMIC, exécuté hors Hibernate dans la transaction courante:
+    // un UPDATE JPQL en masse viderait toute la région books du cache à chaque emprunt
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE " + Book.TABLE + " SET stock = stock - 1, version = version + 1 WHERE id = ? AND stock > 0";
+
+    // Espace de requêtes des pages du catalogue (BookRepository, cache de requêtes)
+    private static final String[] BOOK_QUERY_SPACES = {Book.TABLE};
+
+    private final BookRepository bookRepository;
+    private final StockBucketRepository stockBucketRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecentWrites recentWrites;
+    private final StockUpdateMode stockUpdateMode;
+    private final int optimisticMaxAttempts;
+    private final int defaultStockBuckets;
+
+    // Livres en cours de rééquilibrage sur cette instance (un seul à la fois par livre)
+    private final Set<Long> rebalancing = ConcurrentHashMap.newKeySet();
+
+    public BookInventoryService(
+            BookRepository bookRepository,
+            StockBucketRepository stockBucketRepository,
+            EntityManager entityManager,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            RecentWrites recentWrites,
+            @Value("${book.borrow.stock-mode:pessimistic}") StockUpdateMode stockUpdateMode,
+            @Value("${book.borrow.optimistic-max-attempts:5}") int optimisticMaxAttempts,
+            @Value("${book.borrow.stock-buckets:8}") int defaultStockBuckets) {
+        this.bookRepository = bookRepository;
+        this.stockBucketRepository = stockBucketRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.recentWrites = recentWrites;
+        this.stockUpdateMode = stockUpdateMode;
+        this.optimisticMaxAttempts = Math.max(1, optimisticMaxAttempts);
+        this.defaultStockBuckets = Math.max(1, Math.min(MAX_STOCK_BUCKETS, defaultStockBuckets));
+        logger.info("BookInventoryService initialized with stock mode: {}", stockUpdateMode);
+    }
+
+    /**
+     * Décrémente le stock d'un livre selon la stratégie configurée
+     *
+     * @param bookId ID du livre
+     * @param trace  mesure des étapes de l'emprunt
+     * @return résultat de la décrémentation
+     */
+    public StockUpdateResult decrementStock(Long bookId, BorrowTrace trace) {
+        return switch (stockUpdateMode) {
+            case PESSIMISTIC -> inTransaction(trace, () -> decrementWithLock(bookId, trace));
+            case ATOMIC -> inTransaction(trace, () -> decrementAtomically(bookId, trace));
+            case OPTIMISTIC -> decrementOptimistically(bookId, trace);
+            case STRIPED -> decrementStriped(bookId, trace);
+        };
+    }
+
+    /**
+     * @return stratégie de décrémentation active
+     */
+    public StockUpdateMode getStockUpdateMode() {
+        return stockUpdateMode;
+    }
+
+    /**
+     * @return nombre de seaux par défaut (book.borrow.stock-buckets)
+     */
+    public int getDefaultStockBuckets() {
+        return defaultStockBuckets;
+    }
+
+    /**
+     * Exécute une tentative dans une transaction neuve, en mesurant le commit
+     * Le commit est mesuré même s'il échoue (conflit optimiste au flush, perte de connexion).
+     */
+    private StockUpdateResult inTransaction(BorrowTrace trace, Supplier<StockUpdateResult> attempt) {
+        trace.attempt();
+        BorrowTrace.StageTimer[] commit = new BorrowTrace.StageTimer[1];
+        try {
+            return transactionTemplate.execute(status -> {
+                StockUpdateResult attemptResult = attempt.get();
+                commit[0] = trace.begin(BorrowStage.COMMIT);
+                return attemptResult;
+            });
+        } finally {
+            if (commit[0] != null) {
+                commit[0].stop();
+            }
+        }
+    }
+
+    /**
+     * Mode PESSIMISTIC: verrou de ligne puis décrémentation en Java
+     */
+    private StockUpdateResult decrementWithLock(Long bookId, BorrowTrace trace) {
+        Optional<Book> optionalBook = trace.time(BorrowStage.LOCK, () -> bookRepository.findByIdWithLock(bookId));
+
+        if (optionalBook.isEmpty()) {
+            return StockUpdateResult.notFound();
+        }
+
+        Book book = optionalBook.get();
+        int previousStock = book.getStock();
+
+        if (!book.decrementStock()) {
+            return StockUpdateResult.outOfStock(book.getTitle(), book.getAuthor());
+        }
+
+        // Flush explicite: l'UPDATE est mesuré dans l'étape save plutôt qu'au commit
+        trace.time(BorrowStage.SAVE, () -> bookRepository.saveAndFlush(book));
+        logger.info("Stock decremented for book {}: {} -> {}", bookId, previousStock, book.getStock());
+
+        return StockUpdateResult.decremented(book.getTitle(), book.getAuthor(), previousStock, book.getStock());
+    }
+
+    /**
+     * Mode ATOMIC: UPDATE conditionnel, puis relecture de la ligne
+     * La relecture a lieu dans la même transaction, la ligne étant déjà
+     * verrouillée par l'UPDATE jusqu'au commit. Hibernate ne voit pas l'UPDATE:
+     * l'entrée de ce livre et les pages du catalogue en cache sont invalidées
+     * explicitement ({@link #evictAfterCommit}).
+     */
+    private StockUpdateResult decrementAtomically(Long bookId, BorrowTrace trace) {
+        int updated = trace.time(BorrowStage.LOCK, () -> jdbcTemplate.update(DECREMENT_STOCK_SQL, bookId));
+        if (updated > 0) {
+            // Le livre a pu être chargé avant l'UPDATE dans cette transaction (mode STRIPED)
+            entityManager.clear();
+            evictAfterCommit(bookId);
+        }
+        Optional<Book> optionalBook = trace.time(BorrowStage.READ, () -> bookRepository.findFreshById(bookId));
+
+        if (optionalBook.isEmpty()) {
+            return StockUpdateResult.notFound();
+        }
+
+        Book book = optionalBook.get();
+
+        if (updated == 0) {
+            return StockUpdateResult.outOfStock(book.getTitle(), book.getAuthor());
+        }
+
+        logger.info("Stock decremented atomically for book {}: {} -> {}",
+                bookId, book.getStock() + 1, book.getStock());
+
+        return StockUpdateResult.decremented(book.getTitle(), book.getAuthor(), book.getStock() + 1, book.getStock());
+    }
+
+    /**
+     * Mode OPTIMISTIC: retries bornés, chacun dans une nouvelle transaction
+     */
+    private StockUpdateResult decrementOptimistically(Long bookId, BorrowTrace trace) {
+        for (int attempt = 1; attempt <= optimisticMaxAttempts; attempt++) {
+            try {
+                return inTransaction(trace, () -> decrementWithVersionCheck(bookId, trace));
+            } catch (OptimisticLockingFailureException e) {
+                logger.debug("Optimistic conflict on book {} (attempt {}/{})", bookId, attempt, optimisticMaxAttempts);
+            }
+        }
+
+        logger.warn("Giving up borrow of book {} after {} optimistic conflicts", bookId, optimisticMaxAttempts);
+        return StockUpdateResult.conflict();
+    }
+
+    private StockUpdateResult decrementWithVersionCheck(Long bookId, BorrowTrace trace) {
+        Optional<Book> optionalBook = trace.time(BorrowStage.READ, () -> bookRepository.findFreshById(bookId));
+
+        if (optionalBook.isEmpty()) {
+            return StockUpdateResult.notFound();
+        }
+
+        Book book = optionalBook.get();
+        int previousStock = book.getStock();
+
+        if (!book.decrementStock()) {
+            return StockUpdateResult.outOfStock(book.getTitle(), book.getAuthor());
+        }
+
+        // Le flush déclenche l'UPDATE ... WHERE version = ? dans la tentative courante
+        trace.time(BorrowStage.SAVE, () -> bookRepository.saveAndFlush(book));
+        logger.info("Stock decremented optimistically for book {}: {} -> {}", bookId, previousStock, book.getStock());
+
+        return StockUpdateResult.decremented(book.getTitle(), book.getAuthor(), previousStock, book.getStock());
+    }
+
+    /**
+     * Mode STRIPED: décrémente un seau non vide tiré au hasard
+     * Chaque tentative ne verrouille qu'un seau; si le seau choisi s'est vidé
+     * entre la lecture et l'UPDATE, une nouvelle tentative relit les seaux.
+     * Quand un seau se vide alors que les autres ont encore du stock, les seaux
+     * sont rééquilibrés après le commit.
+     */
+    private StockUpdateResult decrementStriped(Long bookId, BorrowTrace trace) {
+        boolean[] rebalance = new boolean[1];
+        for (int attempt = 1; attempt <= optimisticMaxAttempts; attempt++) {
+            StockUpdateResult result = inTransaction(trace, () -> decrementRandomBucket(bookId, trace, rebalance));
+            if (result != null) {
+                if (rebalance[0]) {
+                    rebalance(bookId);
+                }
+                return result;
+            }
+            logger.debug("Stock bucket of book {} drained concurrently (attempt {}/{})",
+                    bookId, attempt, optimisticMaxAttempts);
+        }
+
+        logger.warn("Giving up borrow of book {} after {} drained stock buckets", bookId, optimisticMaxAttempts);
+        return StockUpdateResult.conflict();
+    }
+
+    /**
+     * @return résultat, ou null si le seau choisi était vide (nouvelle tentative)
+     */
+    private StockUpdateResult decrementRandomBucket(Long bookId, BorrowTrace trace, boolean[] rebalance) {
+        // Relu hors cache: le livre a pu être réparti depuis une autre instance
+        Optional<Book> optionalBook = trace.time(BorrowStage.READ, () -> bookRepository.findFreshById(bookId));
+
+        if (optionalBook.isEmpty()) {
+            return StockUpdateResult.notFound();
+        }
+
+        Book book = optionalBook.get();
+        if (!book.isStriped()) {
+            return decrementAtomically(bookId, trace);
+        }
+
+        List<StockBucket> buckets = trace.time(BorrowStage.READ,
+                () -> stockBucketRepository.findByBookIdOrderByBucket(bookId));
+        int total = 0;
+        List<StockBucket> available = new ArrayList<>(buckets.size());
+        for (StockBucket bucket : buckets) {
+            total += bucket.getStock();
+            if (bucket.getStock() > 0) {
+                available.add(bucket);
+            }
+        }
+
+        if (available.isEmpty()) {
+            return StockUpdateResult.outOfStock(book.getTitle(), book.getAuthor());
+        }
+
+        StockBucket chosen = available.get(ThreadLocalRandom.current().nextInt(available.size()));
+        int updated = trace.time(BorrowStage.LOCK,
+                () -> stockBucketRepository.decrementIfAvailable(bookId, chosen.getBucket()));
+        if (updated == 0) {
+            return null;
+        }
+
+        int emptyBuckets = buckets.size() - available.size() + (chosen.getStock() == 1 ? 1 : 0);
+        rebalance[0] = emptyBuckets > 0 && total - 1 >= buckets.size();
+        evictAfterCommit(bookId);
+
+        // Stock lu avant l'UPDATE: approximatif si d'autres seaux sont décrémentés en parallèle
+        logger.info("Stock decremented in bucket {} for book {}: {} -> {}", chosen.getBucket(), bookId, total, total - 1);
+        return StockUpdateResult.decremented(book.getTitle(), book.getAuthor(), total, total - 1);
+    }
+
+    /**
+     * Décrémente le stock d'un livre pour un groupe d'emprunts, en une transaction
+     * (file d'emprunts asynchrone, voir {@link BorrowQueue})
+     *
+     * Quelle que soit la stratégie configurée, la ligne du livre est verrouillée
+     * une seule fois pour tout le groupe; un livre réparti voit tous ses seaux
+     * verrouillés (dans l'ordre) puis redistribués équitablement.
+     *
+     * @param bookId    ID du livre
+     * @param requested nombre d'exemplaires demandés
+     * @param trace     mesure des étapes, partagée par le groupe
+     * @return stock avant/après: previousStock - remainingStock exemplaires accordés
+     *         (OUT_OF_STOCK si aucun, les premiers demandeurs étant servis en priorité)
+     */
+    public StockUpdateResult decrementStockBatch(Long bookId, int requested, BorrowTrace trace) {
+        return inTransaction(trace, () -> trace.time(BorrowStage.LOCK, () -> bookRepository.findByIdWithLock(bookId)).map(book -> {
+            List<StockBucket> buckets = book.isStriped()
+                    ? stockBucketRepository.findByBookIdForUpdate(bookId)
+                    : List.of();
+            int previousStock = book.isStriped()
+                    ? buckets.stream().mapToInt(StockBucket::getStock).sum()
+                    : book.getStock();
+            int granted = Math.min(previousStock, requested);
+            if (granted == 0) {
+                return StockUpdateResult.outOfStock(book.getTitle(), book.getAuthor());
+            }
+
+            int remainingStock = previousStock - granted;
+            if (book.isStriped()) {
+                for (StockBucket bucket : buckets) {
+                    bucket.setStock(share(remainingStock, buckets.size(), bucket.getBucket()));
+                }
+                evictAfterCommit(bookId);
+            } else {
+                book.setStock(remainingStock);
+            }
+            logger.info("Stock decremented for {} grouped borrows of book {}: {} -> {}",
+                    granted, bookId, previousStock, remainingStock);
+            return StockUpdateResult.decremented(book.getTitle(), book.getAuthor(), previousStock, remainingStock);
+        }).orElseGet(StockUpdateResult::notFound));
+    }
+
+    /**
+     * Répartit le stock d'un livre entre plusieurs seaux (mode STRIPED)
+     * Le stock total est conservé; un livre déjà réparti est redécoupé.
+     *
+     * @param bookId      ID du livre
+     * @param bucketCount nombre de seaux (1 à MAX_STOCK_BUCKETS)
+     * @return stock total du livre, vide si le livre est introuvable
+     * @throws IllegalStateException si le mode d'emprunt n'est pas STRIPED
+     */
+    public Optional<Integer> stripeStock(Long bookId, int bucketCount) {
+        if (stockUpdateMode != StockUpdateMode.STRIPED) {
+            throw new IllegalStateException("Stock buckets require book.borrow.stock-mode=striped");
+        }
+        if (bucketCount < 1 || bucketCount > MAX_STOCK_BUCKETS) {
+            throw new IllegalArgumentException("Bucket count must be between 1 and " + MAX_STOCK_BUCKETS);
+        }
+
+        return transactionTemplate.execute(status -> bookRepository.findByIdWithLock(bookId).map(book -> {
+            // Livre déjà réparti: seaux verrouillés avant lecture, aucun emprunt en cours n'est perdu
+            int total = book.isStriped() ? lockedBucketStock(bookId) : book.getStock();
+            writeBuckets(bookId, total, bucketCount);
+            book.setStock(0);
+            book.setStockBuckets(bucketCount);
+            evictAfterCommit(bookId);
+            recentWrites.markWritten(bookId);
+            logger.info("Stock of book {} striped across {} buckets ({} copies)", bookId, bucketCount, total);
+            return total;
+        }));
+    }
+
+    /**
+     * Regroupe le stock d'un livre réparti dans sa ligne books
+     *
+     * @return stock total du livre, vide si le livre est introuvable
+     */
+    public Optional<Integer> unstripeStock(Long bookId) {
+        return transactionTemplate.execute(status -> bookRepository.findByIdWithLock(bookId).map(book -> {
+            if (!book.isStriped()) {
+                return book.getStock();
+            }
+            int total = lockedBucketStock(bookId);
+            stockBucketRepository.deleteByBookId(bookId);
+            book.setStock(total);
+            book.setStockBuckets(0);
+            evictAfterCommit(bookId);
+            recentWrites.markWritten(bookId);
+            logger.info("Stock buckets of book {} merged ({} copies)", bookId, total);
+            return total;
+        }));
+    }
+
+    /**
+     * Fixe le stock total d'un livre, réparti ou non (transaction en cours)
+     */
+    public void setStock(Book book, int stock) {
+        if (book.isStriped()) {
+            writeBuckets(book.getId(), stock, book.getStockBuckets());
+            book.setStock(0);
+            evictAfterCommit(book.getId());
+        } else {
+            book.setStock(stock);
+        }
+    }
+
+    /**
+     * Supprime les seaux de stock d'un livre supprimé (transaction en cours)
+     */
+    public void deleteStockBuckets(Long bookId) {
+        stockBucketRepository.deleteByBookId(bookId);
+    }
+
+    /**
+     * Redistribue équitablement le stock entre les seaux d'un livre
+     * Les seaux sont verrouillés dans l'ordre, ce qui évite les interblocages
+     * entre rééquilibrages; un échec (verrou, timeout) est sans conséquence:
+     * le prochain seau vidé déclenchera un nouveau rééquilibrage.
+     */
+    private void rebalance(Long bookId) {
+        if (!rebalancing.add(bookId)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<StockBucket> buckets = stockBucketRepository.findByBookIdForUpdate(bookId);
+                int total = buckets.stream().mapToInt(StockBucket::getStock).sum();
+                for (StockBucket bucket : buckets) {
+                    bucket.setStock(share(total, buckets.size(), bucket.getBucket()));
+                }
+                logger.debug("Stock buckets of book {} rebalanced ({} copies, {} buckets)", bookId, total, buckets.size());
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Rebalancing stock buckets of book {} failed: {}", bookId, e.getMessage());
+        } finally {
+            rebalancing.remove(bookId);
+        }
+    }
+
+    private int lockedBucketStock(Long bookId) {
+        return stockBucketRepository.findByBookIdForUpdate(bookId).stream()
+                .mapToInt(StockBucket::getStock)
+                .sum();
+    }
+
+    private void writeBuckets(Long bookId, int total, int bucketCount) {
+        stockBucketRepository.deleteByBookId(bookId);
+        List<StockBucket> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new StockBucket(bookId, i, share(total, bucketCount, i)));
+        }
+        stockBucketRepository.saveAll(buckets);
+    }
+
+    private static int share(int total, int bucketCount, int bucket) {
+        return total / bucketCount + (bucket < total % bucketCount ? 1 : 0);
+    }
+
+    /**
+     * Invalide le cache après une écriture que Hibernate ne voit pas (UPDATE JDBC
+     * du mode ATOMIC, seaux dont la somme est calculée à la lecture)
+     * L'entrée du livre est retirée du cache de second niveau après le commit, et
+     * l'espace de requêtes books est invalidé comme le ferait Hibernate: marqué dès
+     * maintenant (aucune page lue pendant la transaction n'est mise en cache), puis
+     * invalidé à la fin de la transaction. Le reste de la région books est conservé.
+     */
+    private void evictAfterCommit(Long bookId) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        TimestampsCache timestamps = session.getFactory().getCache().getTimestampsCache();
+        timestamps.preInvalidate(BOOK_QUERY_SPACES, session);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManager.getEntityManagerFactory().getCache().evict(Book.class, bookId);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                timestamps.invalidate(BOOK_QUERY_SPACES, session);
+            }
+        });
+    }
+}
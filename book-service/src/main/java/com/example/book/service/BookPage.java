@@ -0,0 +1,14 @@
+package com.example.book.service;
+
+import com.example.book.repository.BookView;
+
+import java.util.List;
+
+/**
+ * Page de livres obtenue par pagination par curseur (keyset)
+ *
+ * @param books      livres de la page, triés par ID croissant
+ * @param nextCursor curseur de la page suivante (ID du dernier livre), null si dernière page
+ */
+public record BookPage(List<BookView> books, Long nextCursor) {
+}
@@ -1,50 +1,109 @@
 package com.example.book.service;
 
-import com.example.book.client.PricingServiceClient;
+import com.example.book.client.Deadline;
+import com.example.book.client.PriceCache;
+import com.example.book.client.PriceQuote;
 import com.example.book.entity.Book;
+import com.example.book.metrics.BorrowMetrics;
+import com.example.book.metrics.BorrowOutcome;
+import com.example.book.metrics.BorrowStage;
+import com.example.book.metrics.BorrowStats;
+import com.example.book.metrics.BorrowTrace;
 import com.example.book.repository.BookRepository;
+import com.example.book.repository.BookSearchHit;
+import com.example.book.repository.BookView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service métier pour la gestion des livres
  * Gère les opérations CRUD et l'emprunt avec résilience
+ *
+ * Les lectures du catalogue s'exécutent en transaction lecture seule: sans
+ * contrôle des modifications (ni copie des entités chargées) côté Hibernate,
+ * et servies par le réplica en lecture s'il est configuré (voir {@link RecentWrites}).
+ * Les listes et flux sont lus en projection ({@link BookView}), sans entité gérée.
  */
 @Service
 public class BookService {
 
     private static final Logger logger = LoggerFactory.getLogger(BookService.class);
-    private static final Double FALLBACK_PRICE = 0.0;
 
     private final BookRepository bookRepository;
-    private final PricingServiceClient pricingServiceClient;
+    private final BookInventoryService bookInventoryService;
+    private final PriceCache priceCache;
+    private final RecentWrites recentWrites;
+    private final BorrowMetrics borrowMetrics;
+    private final BorrowStats borrowStats;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxPageSize;
+    private final int streamChunkSize;
+    private final boolean fullTextSearch;
+    private final Duration borrowDeadline;
 
-    public BookService(BookRepository bookRepository, PricingServiceClient pricingServiceClient) {
+    public BookService(BookRepository bookRepository,
+                       BookInventoryService bookInventoryService,
+                       PriceCache priceCache,
+                       RecentWrites recentWrites,
+                       BorrowMetrics borrowMetrics,
+                       BorrowStats borrowStats,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${book.catalog.max-page-size:1000}") int maxPageSize,
+                       @Value("${book.catalog.stream-chunk-size:500}") int streamChunkSize,
+                       @Value("${book.search.fulltext:false}") boolean fullTextSearch,
+                       @Value("${book.borrow.deadline:5s}") Duration borrowDeadline) {
         this.bookRepository = bookRepository;
-        this.pricingServiceClient = pricingServiceClient;
+        this.bookInventoryService = bookInventoryService;
+        this.priceCache = priceCache;
+        this.recentWrites = recentWrites;
+        this.borrowMetrics = borrowMetrics;
+        this.borrowStats = borrowStats;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPageSize = maxPageSize;
+        this.streamChunkSize = Math.max(1, streamChunkSize);
+        this.fullTextSearch = fullTextSearch;
+        this.borrowDeadline = borrowDeadline;
     }
 
     /**
-     * Récupère tous les livres
+     * Récupère une page de livres (pagination par curseur)
+     *
+     * @param after curseur exclusif (ID du dernier livre de la page précédente), null pour la première page
+     * @param size  taille de page demandée (bornée par book.catalog.max-page-size)
      */
-    public List<Book> getAllBooks() {
-        logger.info("Fetching all books");
-        return bookRepository.findAll();
+    @Transactional(readOnly = true)
+    public BookPage getAllBooks(Long after, int size) {
+        logger.info("Fetching books after={} size={}", after, size);
+        int pageSize = clampPageSize(size);
+        return toPage(bookRepository.findViewsAfter(cursor(after), PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
      * Récupère un livre par son ID
+     * Lecture de l'entité (servie par le cache de second niveau), convertie en vue
      */
-    public Optional<Book> getBookById(Long id) {
+    @Transactional(readOnly = true)
+    public Optional<BookView> getBookById(Long id) {
         logger.info("Fetching book with id={}", id);
-        return bookRepository.findById(id);
+        return recentWrites.read(id, () -> bookRepository.findById(id).map(BookView::of));
     }
 
     /**
@@ -52,19 +111,24 @@ public class BookService {
      */
     public Book createBook(Book book) {
         logger.info("Creating new book: {}", book.getTitle());
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        recentWrites.markWritten(saved.getId());
+        return saved;
     }
 
     /**
      * Met à jour un livre existant
+     * Lecture et écriture dans la même transaction (entrée de cache invalidée au commit)
      */
+    @Transactional
     public Book updateBook(Long id, Book bookDetails) {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
 
         book.setTitle(bookDetails.getTitle());
         book.setAuthor(bookDetails.getAuthor());
-        book.setStock(bookDetails.getStock());
+        bookInventoryService.setStock(book, bookDetails.getStock());
+        recentWrites.markWritten(id);
 
         logger.info("Updating book with id={}", id);
         return bookRepository.save(book);
@@ -73,111 +137,266 @@ public class BookService {
     /**
      * Supprime un livre
      */
+    @Transactional
     public void deleteBook(Long id) {
         logger.info("Deleting book with id={}", id);
+        bookInventoryService.deleteStockBuckets(id);
         bookRepository.deleteById(id);
+        recentWrites.markWritten(id);
     }
 
     /**
      * Emprunte un livre avec transaction et résilience
      * 
      * Processus:
-     * 1. Charge le livre avec verrouillage (évite race conditions)
-     * 2. Vérifie le stock disponible
-     * 3. Décrémente le stock
-     * 4. Appelle pricing-service pour récupérer le prix
-     * 5. Si pricing-service échoue, utilise le fallback (prix = 0.0)
-     * 6. Persiste les changements et retourne le résultat
+     * 1. Décrémente le stock dans une transaction courte (verrou + mise à jour)
+     * 2. Si le livre est introuvable ou en rupture, retourne immédiatement
+     * 3. Résout le prix hors transaction (cache local, puis pricing-service)
+     * 4. Si pricing-service échoue, utilise le dernier prix connu ou le fallback (prix = 0.0)
+     * 5. Retourne le résultat
+     * 
+     * L'appel à pricing-service (avec retries) n'est jamais effectué pendant que
+     * le verrou sur la ligne du livre ou la connexion JDBC sont détenus.
+     * 
+     * L'emprunt dispose de book.borrow.deadline au total: la résolution du prix
+     * (attente, retries, timeout HTTP) se contente du temps laissé par le stock.
+     * 
+     * Chaque étape est mesurée (book.borrow.stage{stage, outcome} et événements JFR).
      * 
      * @param bookId ID du livre à emprunter
-     * @return Map contenant le résultat de l'emprunt
+     * @return résultat de l'emprunt
      */
-    @Transactional
-    public Map<String, Object> borrowBook(Long bookId) {
+    public BorrowResult borrowBook(Long bookId) {
         logger.info("=== BORROW OPERATION START for bookId={} ===", bookId);
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("bookId", bookId);
-        result.put("timestamp", System.currentTimeMillis());
+        long timestamp = System.currentTimeMillis();
+        Deadline deadline = Deadline.after(borrowDeadline);
+        BorrowTrace trace = new BorrowTrace(bookId,
+                bookInventoryService.getStockUpdateMode().name().toLowerCase(Locale.ROOT));
 
-        // 1. Charger le livre avec verrouillage pessimiste
-        Optional<Book> optionalBook = bookRepository.findByIdWithLock(bookId);
+        // 1. Décrémenter le stock (transaction courte sous verrou)
+        StockUpdateResult stockUpdate = bookInventoryService.decrementStock(bookId, trace);
+        if (stockUpdate.status() == StockUpdateResult.Status.DECREMENTED) {
+            recentWrites.markWritten(bookId);
+        }
 
-        if (optionalBook.isEmpty()) {
+        // 2. Vérifier le résultat
+        if (stockUpdate.status() == StockUpdateResult.Status.NOT_FOUND) {
             logger.error("Book not found with id={}", bookId);
-            result.put("success", false);
-            result.put("error", "Book not found");
-            result.put("status", "NOT_FOUND");
-            return result;
+            borrowMetrics.record(trace, BorrowOutcome.NOT_FOUND);
+            return BorrowResult.notFound(bookId, timestamp);
         }
+        borrowStats.record(bookId, 1);
 
-        Book book = optionalBook.get();
-        result.put("title", book.getTitle());
-        result.put("author", book.getAuthor());
+        if (stockUpdate.status() == StockUpdateResult.Status.CONFLICT) {
+            logger.warn("Borrow of book {} aborted after repeated concurrent updates", bookId);
+            borrowMetrics.record(trace, BorrowOutcome.CONFLICT);
+            return BorrowResult.conflict(bookId, timestamp);
+        }
 
-        // 2. Vérifier le stock
-        if (book.getStock() <= 0) {
+        if (stockUpdate.status() == StockUpdateResult.Status.OUT_OF_STOCK) {
             logger.warn("Book {} is out of stock", bookId);
-            result.put("success", false);
-            result.put("error", "Book is out of stock");
-            result.put("status", "OUT_OF_STOCK");
-            result.put("stock", 0);
-            return result;
+            borrowMetrics.record(trace, BorrowOutcome.OUT_OF_STOCK);
+            return BorrowResult.outOfStock(bookId, timestamp, stockUpdate.title(), stockUpdate.author());
         }
 
-        // 3. Décrémenter le stock
-        int previousStock = book.getStock();
-        book.decrementStock();
-        logger.info("Stock decremented for book {}: {} -> {}", bookId, previousStock, book.getStock());
+        // 3. Résoudre le prix (cache local, pricing-service, puis fallback), transaction déjà validée
+        PriceQuote quote = trace.time(BorrowStage.PRICING, () -> priceCache.getPrice(bookId, deadline));
+        double price = quote.price();
+        boolean pricingAvailable = quote.isLive();
 
-        // 4. Appeler pricing-service (avec résilience)
-        Double price;
-        boolean pricingAvailable = true;
-
-        try {
-            price = pricingServiceClient.getPrice(bookId);
+        if (pricingAvailable) {
             logger.info("Price retrieved from pricing-service: {}", price);
-
-            // Vérifier si c'est le prix fallback
-            if (price.equals(FALLBACK_PRICE)) {
-                pricingAvailable = false;
-                logger.warn("Fallback price used - pricing-service was unavailable");
-            }
-        } catch (Exception e) {
-            // Ce cas ne devrait pas arriver grâce au fallback, mais par sécurité
-            logger.error("Unexpected error calling pricing-service: {}", e.getMessage());
-            price = FALLBACK_PRICE;
-            pricingAvailable = false;
+        } else {
+            logger.warn("{} price used - pricing-service was unavailable", quote.source());
         }
 
-        // 5. Sauvegarder les changements
-        bookRepository.save(book);
-        logger.info("Book {} saved with new stock={}", bookId, book.getStock());
-
-        // 6. Construire la réponse
-        result.put("success", true);
-        result.put("status", "BORROWED");
-        result.put("previousStock", previousStock);
-        result.put("remainingStock", book.getStock());
-        result.put("price", price);
-        result.put("currency", "EUR");
-        result.put("pricingServiceAvailable", pricingAvailable);
-
-        if (!pricingAvailable) {
-            result.put("priceNote", "Fallback price used - pricing service was unavailable");
-        }
+        // 4. Construire la réponse
+        BorrowResult result = BorrowResult.borrowed(bookId, timestamp, stockUpdate.title(), stockUpdate.author(),
+                stockUpdate.previousStock(), stockUpdate.remainingStock(), BorrowPrice.of(quote));
 
         logger.info("=== BORROW OPERATION SUCCESS for bookId={} ===", bookId);
         logger.info("Result: stock {} -> {}, price={}, pricingAvailable={}",
-                previousStock, book.getStock(), price, pricingAvailable);
+                stockUpdate.previousStock(), stockUpdate.remainingStock(), price, pricingAvailable);
 
+        borrowMetrics.record(trace, pricingAvailable ? BorrowOutcome.BORROWED : BorrowOutcome.FALLBACK);
         return result;
     }
 
     /**
-     * Recherche les livres disponibles (stock > 0)
+     * Emprunte plusieurs exemplaires d'un livre pour un groupe de demandes
+     * (file d'emprunts asynchrone, voir {@link BorrowQueue})
+     *
+     * Une seule transaction décrémente le stock du groupe; les premières
+     * demandes sont servies tant qu'il reste du stock, les suivantes sont en
+     * rupture. Le prix est résolu une seule fois, après le commit, pour tout le
+     * groupe et sans bloquer l'appelant: le worker de la file passe au groupe
+     * suivant pendant qu'un prix absent du cache est chargé (au plus
+     * book.borrow.deadline, puis fallback).
+     *
+     * Les emprunts du groupe sont mesurés comme les emprunts synchrones
+     * (book.borrow.stage{stage, outcome}), avec une trace commune.
+     *
+     * @param bookId ID du livre
+     * @param count  nombre d'emprunts demandés
+     * @return un résultat par demande, dans l'ordre (même format que {@link #borrowBook})
+     */
+    public CompletableFuture<List<BorrowResult>> borrowBooks(Long bookId, int count) {
+        BorrowTrace trace = new BorrowTrace(bookId,
+                bookInventoryService.getStockUpdateMode().name().toLowerCase(Locale.ROOT));
+        StockUpdateResult stockUpdate = bookInventoryService.decrementStockBatch(bookId, count, trace);
+        long timestamp = System.currentTimeMillis();
+
+        if (stockUpdate.status() == StockUpdateResult.Status.NOT_FOUND) {
+            borrowMetrics.record(trace, BorrowOutcome.NOT_FOUND, count);
+            return CompletableFuture.completedFuture(
+                    Collections.nCopies(count, BorrowResult.notFound(bookId, timestamp)));
+        }
+        borrowStats.record(bookId, count);
+
+        int granted = stockUpdate.previousStock() - stockUpdate.remainingStock();
+        // Les refus d'un groupe sont identiques: une seule instance partagée
+        BorrowResult outOfStock = granted < count
+                ? BorrowResult.outOfStock(bookId, timestamp, stockUpdate.title(), stockUpdate.author())
+                : null;
+        if (granted == 0) {
+            borrowMetrics.record(trace, BorrowOutcome.OUT_OF_STOCK, count);
+            return CompletableFuture.completedFuture(Collections.nCopies(count, outOfStock));
+        }
+        recentWrites.markWritten(bookId);
+
+        BorrowTrace.StageTimer pricingTimer = trace.begin(BorrowStage.PRICING);
+        return priceCache.getPriceAsync(bookId, Deadline.after(borrowDeadline)).thenApply(quote -> {
+            pricingTimer.stop();
+            BorrowPrice pricing = BorrowPrice.of(quote);
+            List<BorrowResult> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(i < granted
+                        ? BorrowResult.borrowed(bookId, timestamp, stockUpdate.title(), stockUpdate.author(),
+                                stockUpdate.previousStock() - i, stockUpdate.previousStock() - i - 1, pricing)
+                        : outOfStock);
+            }
+            borrowMetrics.record(trace, quote.isLive() ? BorrowOutcome.BORROWED : BorrowOutcome.FALLBACK, granted);
+            if (granted < count) {
+                borrowMetrics.record(trace, BorrowOutcome.OUT_OF_STOCK, count - granted);
+            }
+            logger.info("Grouped borrow of book {}: {} requested, {} borrowed", bookId, count, granted);
+            return results;
+        });
+    }
+
+    /**
+     * Recherche une page de livres disponibles (stock > 0)
+     */
+    @Transactional(readOnly = true)
+    public BookPage getAvailableBooks(Long after, int size) {
+        int pageSize = clampPageSize(size);
+        return toPage(bookRepository.findAvailableAfter(cursor(after), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Parcourt le catalogue livre par livre, sans le charger entièrement en mémoire
+     * Les livres sont lus en projection, par lots de book.catalog.stream-chunk-size
+     * (pagination keyset): la consommation mémoire reste constante quelle que
+     * soit la taille du catalogue.
+     *
+     * Chaque lot est lu dans sa propre transaction, et traité une fois la
+     * connexion rendue: un client lent ne retient pas de connexion JDBC pendant
+     * toute la durée du flux. Le parcours n'est pas un instantané: un livre
+     * modifié en cours de flux apparaît dans l'état lu par son lot.
+     *
+     * @param availableOnly true pour ne parcourir que les livres disponibles
+     * @param action        traitement appliqué à chaque livre
      */
-    public List<Book> getAvailableBooks() {
-        return bookRepository.findByStockGreaterThan(0);
+    public void forEachBook(boolean availableOnly, Consumer<BookView> action) {
+        logger.info("Streaming {} books", availableOnly ? "available" : "all");
+        PageRequest chunk = PageRequest.of(0, streamChunkSize);
+        long after = 0L;
+        while (true) {
+            long cursor = after;
+            List<BookView> books = readOnlyTransaction.execute(status -> availableOnly
+                    ? bookRepository.findAvailableChunkAfter(cursor, chunk)
+                    : bookRepository.findChunkAfter(cursor, chunk));
+            books.forEach(action);
+            if (books.size() < streamChunkSize) {
+                return;
+            }
+            after = books.get(books.size() - 1).id();
+        }
+    }
+
+    /**
+     * Recherche des livres par titre ou auteur, triés par pertinence
+     * - book.search.fulltext=true: index FULLTEXT MySQL (MATCH ... AGAINST)
+     * - sinon: recherche LIKE portable (H2), titre prioritaire sur l'auteur
+     *
+     * @param query texte recherché
+     * @param page  numéro de page (à partir de 0)
+     * @param size  taille de page (bornée par book.catalog.max-page-size)
+     */
+    @Transactional(readOnly = true)
+    public List<BookSearchHit> searchBooks(String query, int page, int size) {
+        logger.info("Searching books query='{}' page={} size={}", query, page, size);
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), clampPageSize(size));
+
+        if (fullTextSearch) {
+            return bookRepository.searchFullText(query, pageRequest);
+        }
+        return bookRepository.searchByPattern(likePattern(query), pageRequest);
+    }
+
+    /**
+     * Titres les plus demandés sur une fenêtre glissante, avec titre et auteur
+     * Les livres supprimés depuis leurs emprunts sont omis.
+     *
+     * @param limit nombre de titres (borné par book.stats.top-k)
+     */
+    @Transactional(readOnly = true)
+    public TopBooks getTopBooks(BorrowStats.Window window, int limit) {
+        BorrowStats.Ranking ranking = borrowStats.getRanking(window);
+        List<BorrowStats.Entry> top = ranking.top().subList(0, Math.max(0, Math.min(limit, ranking.top().size())));
+        if (top.isEmpty()) {
+            return new TopBooks(window.tag(), ranking.asOf(), ranking.borrows(), List.of());
+        }
+        Map<Long, BookView> books = bookRepository.findViewsByIdIn(top.stream().map(BorrowStats.Entry::bookId).toList())
+                .stream()
+                .collect(Collectors.toMap(BookView::id, Function.identity()));
+
+        List<TopBooks.Entry> entries = new ArrayList<>(top.size());
+        for (BorrowStats.Entry entry : top) {
+            BookView book = books.get(entry.bookId());
+            if (book != null) {
+                entries.add(new TopBooks.Entry(book.id(), book.title(), book.author(), book.stock(), entry.borrows()));
+            }
+        }
+        return new TopBooks(window.tag(), ranking.asOf(), ranking.borrows(), entries);
+    }
+
+    private static String likePattern(String query) {
+        String escaped = query.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    private static long cursor(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    /**
+     * Construit une page à partir de pageSize + 1 résultats: la ligne
+     * supplémentaire indique seulement l'existence d'une page suivante
+     */
+    private static BookPage toPage(List<BookView> books, int pageSize) {
+        if (books.size() <= pageSize) {
+            return new BookPage(books, null);
+        }
+        List<BookView> page = books.subList(0, pageSize);
+        return new BookPage(page, page.get(pageSize - 1).id());
     }
 }
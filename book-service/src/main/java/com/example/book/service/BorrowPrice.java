@@ -0,0 +1,26 @@
+package com.example.book.service;
+
+import com.example.book.client.PriceQuote;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Prix d'un emprunt réussi et sa provenance
+ * Une seule instance par prix résolu: partagée par tous les emprunts d'un groupe
+ *
+ * @param pricingServiceAvailable false si le prix est un prix en cache non rafraîchi, un dernier prix connu ou le fallback
+ * @param priceNote               explication pour un prix dégradé, null sinon
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BorrowPrice(double price, String currency, boolean pricingServiceAvailable,
+                          PriceQuote.Source priceSource, String priceNote) {
+
+    public static BorrowPrice of(PriceQuote quote) {
+        String note = switch (quote.source()) {
+            case CACHED -> "Cached price used - pricing service was unavailable on refresh";
+            case LAST_KNOWN -> "Last known price used - pricing service was unavailable";
+            case FALLBACK -> "Fallback price used - pricing service was unavailable";
+            default -> null;
+        };
+        return new BorrowPrice(quote.price(), "EUR", quote.isLive(), quote.source(), note);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.book.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File d'emprunts asynchrone avec commit groupé (book.borrow.async.enabled)
+ *
+ * POST /books/{id}/borrow place l'emprunt en file et retourne un ticket
+ * (202); l'issue est consultable via GET /books/borrows/{ticket}. Chaque
+ * worker vide sa file par micro-lots (jusqu'à max-batch emprunts, en
+ * attendant au plus linger), regroupe les emprunts par livre et applique
+ * chaque groupe en une transaction ({@link BookService#borrowBooks}): un
+ * verrou et un commit pour tous les emprunts d'un livre, au lieu d'un par emprunt.
+ * Le prix du groupe est résolu après le commit sans occuper le worker: les
+ * tickets du groupe sont complétés quand il est connu (fallback à l'échéance).
+ *
+ * Ordre: les livres sont répartis entre les workers par bookId, chaque file
+ * est FIFO; les emprunts d'un même livre sont donc traités dans l'ordre
+ * d'arrivée, et servis dans cet ordre tant qu'il reste du stock.
+ *
+ * Au plus une fois: un ticket n'est appliqué que dans un seul groupe. Si la
+ * transaction du groupe échoue, ses tickets passent en FAILED sans nouvel
+ * essai (le client décide de réemprunter). File pleine: refus immédiat (503).
+ *
+ * Les tickets sont conservés en mémoire de l'instance pendant ticket-ttl.
+ */
+@Service
+public class BorrowQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(BorrowQueue.class);
+
+    private final BookService bookService;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final List<BlockingQueue<BorrowTicket>> partitions = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Cache<String, BorrowTicket> tickets;
+    private final Counter rejectedCounter;
+    private final DistributionSummary groupSizeSummary;
+    private final Timer waitTimer;
+    private volatile boolean running = true;
+
+    public BorrowQueue(
+            BookService bookService,
+            MeterRegistry meterRegistry,
+            @Value("${book.borrow.async.enabled:false}") boolean enabled,
+            @Value("${book.borrow.async.workers:4}") int workerCount,
+            @Value("${book.borrow.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${book.borrow.async.max-batch:500}") int maxBatch,
+            @Value("${book.borrow.async.linger:2ms}") Duration linger,
+            @Value("${book.borrow.async.ticket-ttl:10m}") Duration ticketTtl) {
+        this.bookService = bookService;
+        this.enabled = enabled;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = linger.toNanos();
+        this.tickets = Caffeine.newBuilder()
+                .expireAfterWrite(ticketTtl)
+                .build();
+        this.rejectedCounter = Counter.builder("book.borrow.queue.rejected")
+                .description("Emprunts refusés, file d'attente pleine")
+                .register(meterRegistry);
+        this.groupSizeSummary = DistributionSummary.builder("book.borrow.queue.group.size")
+                .description("Nombre d'emprunts d'un même livre appliqués en une transaction")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("book.borrow.queue.wait")
+                .description("Durée entre la mise en file d'un emprunt et son issue")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        if (enabled) {
+            int count = Math.max(1, workerCount);
+            int capacity = Math.max(1, queueCapacity / count);
+            for (int i = 0; i < count; i++) {
+                BlockingQueue<BorrowTicket> partition = new ArrayBlockingQueue<>(capacity);
+                partitions.add(partition);
+                Thread worker = new Thread(() -> drain(partition), "borrow-queue-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+        Gauge.builder("book.borrow.queue.depth", partitions,
+                        queues -> queues.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Emprunts en attente de traitement")
+                .register(meterRegistry);
+        logger.info("BorrowQueue initialized: enabled={}, workers={}, maxBatch={}, linger={}",
+                enabled, workers.size(), maxBatch, linger);
+    }
+
+    /**
+     * @return true si les emprunts passent par la file (book.borrow.async.enabled)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Place un emprunt en file
+     *
+     * @param bookId ID du livre
+     * @return ticket de l'emprunt
+     * @throws IllegalStateException si la file est pleine ou désactivée
+     */
+    public BorrowTicket submit(Long bookId) {
+        if (!enabled || !running) {
+            throw new IllegalStateException("Borrow queue is not running");
+        }
+        BorrowTicket ticket = new BorrowTicket(bookId);
+        tickets.put(ticket.getId(), ticket);
+        if (!partitions.get(Math.floorMod(bookId.hashCode(), partitions.size())).offer(ticket)) {
+            tickets.invalidate(ticket.getId());
+            rejectedCounter.increment();
+            throw new IllegalStateException("Borrow queue is full");
+        }
+        return ticket;
+    }
+
+    /**
+     * @return ticket, vide s'il est inconnu de cette instance ou expiré
+     */
+    public Optional<BorrowTicket> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.getIfPresent(ticketId));
+    }
+
+    private void drain(BlockingQueue<BorrowTicket> partition) {
+        List<BorrowTicket> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(partition.take());
+                // Complète le micro-lot avec les emprunts arrivés pendant linger
+                long lingerDeadline = System.nanoTime() + lingerNanos;
+                partition.drainTo(batch, maxBatch - batch.size());
+                while (batch.size() < maxBatch) {
+                    BorrowTicket next = partition.poll(lingerDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    partition.drainTo(batch, maxBatch - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            apply(batch);
+            batch.clear();
+        }
+        // Arrêt: les emprunts restants ne sont pas appliqués
+        partition.drainTo(batch);
+        batch.forEach(ticket -> complete(ticket, failure(ticket, "Service is shutting down")));
+    }
+
+    /**
+     * Applique un micro-lot: un groupe (une transaction) par livre, dans l'ordre d'arrivée
+     */
+    private void apply(List<BorrowTicket> batch) {
+        Map<Long, List<BorrowTicket>> groups = new LinkedHashMap<>();
+        for (BorrowTicket ticket : batch) {
+            groups.computeIfAbsent(ticket.getBookId(), id -> new ArrayList<>()).add(ticket);
+        }
+        groups.forEach((bookId, group) -> {
+            groupSizeSummary.record(group.size());
+            CompletableFuture<List<BorrowResult>> results;
+            try {
+                results = bookService.borrowBooks(bookId, group.size());
+            } catch (RuntimeException e) {
+                fail(bookId, group, e);
+                return;
+            }
+            // Stock validé: les tickets sont complétés dès que le prix est résolu, hors du worker
+            results.whenComplete((groupResults, error) -> {
+                if (error != null) {
+                    fail(bookId, group, error);
+                    return;
+                }
+                for (int i = 0; i < group.size(); i++) {
+                    complete(group.get(i), groupResults.get(i));
+                }
+            });
+        });
+    }
+
+    private void fail(Long bookId, List<BorrowTicket> group, Throwable error) {
+        logger.error("Grouped borrow of book {} failed for {} tickets: {}", bookId, group.size(), error.getMessage());
+        group.forEach(ticket -> complete(ticket, failure(ticket, error.getMessage())));
+    }
+
+    private void complete(BorrowTicket ticket, BorrowResult result) {
+        ticket.complete(result);
+        waitTimer.record(System.nanoTime() - ticket.getSubmittedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static BorrowResult failure(BorrowTicket ticket, String message) {
+        return BorrowResult.failure(ticket.getBookId(), System.currentTimeMillis(), BorrowStatus.FAILED, message);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+}
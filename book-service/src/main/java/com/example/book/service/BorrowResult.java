@@ -0,0 +1,46 @@
+package com.example.book.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * Résultat d'un emprunt (réponse de POST /books/{id}/borrow)
+ *
+ * Les champs sans objet pour l'issue (prix d'un emprunt refusé, erreur d'un
+ * emprunt réussi...) sont null et absents du JSON. Le prix est aplati dans
+ * la réponse (price, currency, pricingServiceAvailable, priceSource, priceNote).
+ *
+ * @param stock          stock restant, renseigné seulement en rupture (0)
+ * @param previousStock  stock avant l'emprunt
+ * @param remainingStock stock après l'emprunt
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BorrowResult(Long bookId, long timestamp, boolean success, BorrowStatus status, String error,
+                           String title, String author, Integer stock,
+                           Integer previousStock, Integer remainingStock,
+                           @JsonUnwrapped BorrowPrice pricing) {
+
+    public static BorrowResult borrowed(Long bookId, long timestamp, String title, String author,
+                                        int previousStock, int remainingStock, BorrowPrice pricing) {
+        return new BorrowResult(bookId, timestamp, true, BorrowStatus.BORROWED, null,
+                title, author, null, previousStock, remainingStock, pricing);
+    }
+
+    public static BorrowResult outOfStock(Long bookId, long timestamp, String title, String author) {
+        return new BorrowResult(bookId, timestamp, false, BorrowStatus.OUT_OF_STOCK, "Book is out of stock",
+                title, author, 0, null, null, null);
+    }
+
+    public static BorrowResult notFound(Long bookId, long timestamp) {
+        return failure(bookId, timestamp, BorrowStatus.NOT_FOUND, "Book not found");
+    }
+
+    public static BorrowResult conflict(Long bookId, long timestamp) {
+        return failure(bookId, timestamp, BorrowStatus.CONFLICT, "Too many concurrent borrows, please retry");
+    }
+
+    public static BorrowResult failure(Long bookId, long timestamp, BorrowStatus status, String error) {
+        return new BorrowResult(bookId, timestamp, false, status, error,
+                null, null, null, null, null, null);
+    }
+}
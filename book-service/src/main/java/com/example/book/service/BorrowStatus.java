@@ -0,0 +1,15 @@
+package com.example.book.service;
+
+/**
+ * Issue d'un emprunt, telle que renvoyée au client (champ status)
+ */
+public enum BorrowStatus {
+    BORROWED,
+    OUT_OF_STOCK,
+    NOT_FOUND,
+    CONFLICT,
+    // Mode asynchrone (voir BorrowQueue)
+    PENDING,
+    FAILED,
+    REJECTED
+}
@@ -0,0 +1,78 @@
+package com.example.book.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Emprunt en file d'attente (mode asynchrone, voir {@link BorrowQueue})
+ *
+ * Le ticket est complété une seule fois, avec le résultat de l'emprunt
+ * ({@link BorrowResult}, comme {@link BookService#borrowBook}) ou un échec.
+ */
+public final class BorrowTicket {
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long bookId;
+    private final long submittedAt = System.currentTimeMillis();
+    private final long submittedNanos = System.nanoTime();
+    private final CompletableFuture<BorrowResult> outcome = new CompletableFuture<>();
+
+    BorrowTicket(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    long getSubmittedNanos() {
+        return submittedNanos;
+    }
+
+    /**
+     * @return true si l'emprunt a été traité (avec succès ou non)
+     */
+    public boolean isDone() {
+        return outcome.isDone();
+    }
+
+    /**
+     * @return futur complété avec le résultat de l'emprunt
+     */
+    public CompletableFuture<BorrowResult> completion() {
+        return outcome.copy();
+    }
+
+    void complete(BorrowResult result) {
+        outcome.complete(result);
+    }
+
+    /**
+     * @return état du ticket: PENDING, ou résultat de l'emprunt
+     */
+    public View toResponse() {
+        BorrowResult result = outcome.getNow(null);
+        return result != null
+                ? new View(id, submittedAt, null, null, result)
+                : new View(id, submittedAt, bookId, BorrowStatus.PENDING, null);
+    }
+
+    /**
+     * Réponse de GET /books/borrows/{ticket}: le ticket, suivi des champs du
+     * résultat de l'emprunt une fois traité
+     *
+     * @param bookId ID du livre, porté par le résultat une fois traité
+     * @param status PENDING tant que l'emprunt n'est pas traité, porté par le résultat ensuite
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record View(String ticket, long submittedAt, Long bookId, BorrowStatus status,
+                       @JsonUnwrapped BorrowResult result) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.book.service;
+
+import java.util.List;
+
+/**
+ * Bilan d'un import en masse de livres
+ *
+ * @param imported      nombre de livres insérés
+ * @param rejected      nombre de lignes rejetées (format ou validation)
+ * @param durationMs    durée de l'import
+ * @param rowsPerSecond débit moyen d'insertion
+ * @param errors        premières erreurs rencontrées (numéro de ligne et cause)
+ */
+public record ImportReport(long imported, long rejected, long durationMs, double rowsPerSecond, List<String> errors) {
+}
@@ -0,0 +1,76 @@
+package com.example.book.service;
+
+import com.example.book.config.ReadWriteRoutingDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Lecture de ses propres écritures avec un réplica en lecture
+ *
+ * Pendant book.datasource.replica.sticky-window après une écriture sur un
+ * livre (emprunt, mise à jour, création...), la lecture de ce livre par ID
+ * est servie par la primaire: le réplica peut ne pas encore avoir reçu
+ * l'écriture. Les listes et recherches restent sur le réplica (cohérence
+ * à terme). Sans réplica, ne fait rien.
+ */
+@Component
+public class RecentWrites {
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> recentlyWritten;
+    private final Counter stickyReadCounter;
+
+    public RecentWrites(
+            MeterRegistry meterRegistry,
+            @Value("${book.datasource.replica.enabled:false}") boolean enabled,
+            @Value("${book.datasource.replica.sticky-window:2s}") Duration stickyWindow) {
+        this.enabled = enabled;
+        this.recentlyWritten = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(stickyWindow)
+                .build();
+        this.stickyReadCounter = Counter.builder("book.datasource.sticky.reads")
+                .description("Lectures servies par la primaire après une écriture récente du livre")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Signale une écriture sur un livre (au commit si une transaction est en cours)
+     */
+    public void markWritten(Long bookId) {
+        if (!enabled || bookId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentlyWritten.put(bookId, Boolean.TRUE);
+                }
+            });
+        } else {
+            recentlyWritten.put(bookId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Exécute une lecture du livre sur la primaire s'il a été écrit récemment
+     * À appeler avant toute autre requête de la transaction en lecture seule.
+     */
+    public <T> T read(Long bookId, Supplier<T> action) {
+        if (enabled && recentlyWritten.getIfPresent(bookId) != null) {
+            stickyReadCounter.increment();
+            return ReadWriteRoutingDataSource.onPrimary(action);
+        }
+        return action.get();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.book.service;
+
+/**
+ * Stratégie de décrémentation du stock lors d'un emprunt
+ * Sélectionnée par la propriété book.borrow.stock-mode
+ */
+public enum StockUpdateMode {
+
+    /**
+     * SELECT ... FOR UPDATE puis UPDATE (comportement historique)
+     */
+    PESSIMISTIC,
+
+    /**
+     * UPDATE conditionnel unique: stock = stock - 1 WHERE stock > 0
+     */
+    ATOMIC,
+
+    /**
+     * Lecture sans verrou + contrôle de version (@Version) avec retries bornés
+     */
+    OPTIMISTIC,
+
+    /**
+     * UPDATE conditionnel sur un seau de stock tiré au hasard (livres répartis en seaux)
+     * Les livres non répartis sont décrémentés comme en mode ATOMIC
+     */
+    STRIPED
+}
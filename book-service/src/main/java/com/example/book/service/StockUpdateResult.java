@@ -0,0 +1,36 @@
+package com.example.book.service;
+
+/**
+ * Résultat de l'étape transactionnelle de décrémentation du stock
+ *
+ * @param status         issue de l'opération
+ * @param title          titre du livre (null si introuvable)
+ * @param author         auteur du livre (null si introuvable)
+ * @param previousStock  stock avant l'emprunt
+ * @param remainingStock stock après l'emprunt
+ */
+public record StockUpdateResult(Status status, String title, String author, int previousStock, int remainingStock) {
+
+    public enum Status {
+        DECREMENTED,
+        OUT_OF_STOCK,
+        NOT_FOUND,
+        CONFLICT
+    }
+
+    public static StockUpdateResult notFound() {
+        return new StockUpdateResult(Status.NOT_FOUND, null, null, 0, 0);
+    }
+
+    public static StockUpdateResult conflict() {
+        return new StockUpdateResult(Status.CONFLICT, null, null, 0, 0);
+    }
+
+    public static StockUpdateResult outOfStock(String title, String author) {
+        return new StockUpdateResult(Status.OUT_OF_STOCK, title, author, 0, 0);
+    }
+
+    public static StockUpdateResult decremented(String title, String author, int previousStock, int remainingStock) {
+        return new StockUpdateResult(Status.DECREMENTED, title, author, previousStock, remainingStock);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.book.service;
+
+import java.util.List;
+
+/**
+ * Titres les plus demandés sur une fenêtre glissante (GET /books/stats/top)
+ *
+ * @param window  fenêtre: 1m, 15m ou 1h
+ * @param asOf    fin de la dernière tranche prise en compte (epoch millis)
+ * @param borrows total des demandes d'emprunt sur la fenêtre
+ * @param top     titres par demandes décroissantes
+ */
+public record TopBooks(String window, long asOf, long borrows, List<Entry> top) {
+
+    /**
+     * @param borrows demandes d'emprunt estimées sur la fenêtre (par excès)
+     */
+    public record Entry(Long bookId, String title, String author, Integer stock, long borrows) {
+    }
+}
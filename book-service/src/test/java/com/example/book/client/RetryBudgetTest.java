@@ -0,0 +1,96 @@
+package com.example.book.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private RetryBudget budget(double ratio, int minPerSecond, Duration window) {
+        return new RetryBudget(new SimpleMeterRegistry(), ratio, minPerSecond, window, clock::get);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void allowsTheFloorWithoutSuccesses() {
+        RetryBudget budget = budget(0.2, 1, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(budget.tryAcquire()).isTrue();
+        }
+        assertThat(budget.tryAcquire()).isFalse();
+        assertThat(budget.available()).isZero();
+    }
+
+    @Test
+    void allowsARatioOfSuccesses() {
+        RetryBudget budget = budget(0.2, 0, Duration.ofSeconds(10));
+        for (int i = 0; i < 100; i++) {
+            budget.recordSuccess();
+        }
+
+        assertThat(budget.available()).isEqualTo(20);
+        for (int i = 0; i < 20; i++) {
+            assertThat(budget.tryAcquire()).isTrue();
+        }
+        assertThat(budget.tryAcquire()).isFalse();
+        assertThat(budget.retryRatio()).isEqualTo(0.2);
+    }
+
+    @Test
+    void forgetsSecondsOutsideTheWindow() {
+        RetryBudget budget = budget(1.0, 0, Duration.ofSeconds(3));
+        budget.recordSuccess();
+        advance(1_000);
+        budget.recordSuccess();
+        assertThat(budget.available()).isEqualTo(2);
+
+        // Le premier succès sort de la fenêtre de 3s, le second y reste
+        advance(2_000);
+        assertThat(budget.available()).isEqualTo(1);
+        advance(1_000);
+        assertThat(budget.available()).isZero();
+    }
+
+    @Test
+    void reusesABucketAfterAFullWindow() {
+        RetryBudget budget = budget(0.0, 1, Duration.ofSeconds(2));
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+
+        // Même seau (seconde + fenêtre): remis à zéro, pas cumulé
+        advance(2_000);
+        assertThat(budget.available()).isEqualTo(2);
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void countsWindowAcrossNegativeClockValues() {
+        // System.nanoTime peut être négatif: la fenêtre traverse zéro sans index négatif
+        clock.set(TimeUnit.MILLISECONDS.toNanos(-2_500));
+        RetryBudget budget = budget(1.0, 0, Duration.ofSeconds(3));
+
+        for (int i = 0; i < 5; i++) {
+            budget.recordSuccess();
+            advance(1_000);
+        }
+
+        // Succès à -2.5s, -1.5s, -0.5s, 0.5s, 1.5s; à 2.5s la fenêtre couvre les secondes 0, 1 et 2
+        assertThat(budget.available()).isEqualTo(2);
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.available()).isEqualTo(1);
+    }
+}
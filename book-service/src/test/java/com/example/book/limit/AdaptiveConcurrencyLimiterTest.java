@@ -0,0 +1,121 @@
+package com.example.book.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * Remplit la limite puis libère toutes les places avec la même latence, jusqu'à samples mesures
+     */
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos, int samples) {
+        int sampled = 0;
+        while (sampled < samples) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(rttNanos);
+            }
+            sampled += acquired;
+        }
+    }
+
+    @Test
+    void rejectsBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10, 1.5, 0.2);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(3);
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1.5, 1.0);
+
+        saturate(limiter, FAST, 200);
+
+        assertThat(limiter.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(100);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 100, 1.5, 1.0);
+        saturate(limiter, FAST, 100);
+        int baseline = limiter.getLimit();
+
+        saturate(limiter, SLOW, 20);
+
+        assertThat(limiter.getLimit()).isLessThan(baseline).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void staysAtTheMinimumUnderSustainedOverload() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 5, 100, 1.0, 1.0);
+        saturate(limiter, FAST, 100);
+
+        for (long rtt = 2 * FAST; rtt < 1_000 * FAST; rtt *= 2) {
+            saturate(limiter, rtt, 40);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotGrowWhenUnderused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1.5, 1.0);
+
+        // Une seule requête à la fois: moins de la moitié de la limite utilisée
+        for (int i = 0; i < 200; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void releaseWithoutSampleFreesTheSlotWithoutAdapting() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1.5, 1.0);
+
+        for (int round = 0; round < 20; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.releaseWithoutSample();
+            }
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 0, 100, 1.5, 0.2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 20, 10, 1.5, 0.2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, 0.2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 1, 100, 1.5, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
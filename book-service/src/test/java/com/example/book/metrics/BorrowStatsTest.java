@@ -0,0 +1,117 @@
+package com.example.book.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BorrowStatsTest {
+
+    /**
+     * Statistiques sans planificateur: les tranches sont closes par des appels explicites à rotate()
+     */
+    private static BorrowStats manualStats(int topK) {
+        BorrowStats stats = new BorrowStats(new SimpleMeterRegistry(), true, topK, 64, 512);
+        stats.shutdown();
+        return stats;
+    }
+
+    private static void rotate(BorrowStats stats, int times) {
+        for (int i = 0; i < times; i++) {
+            stats.rotate();
+        }
+    }
+
+    private static long borrows(BorrowStats stats, BorrowStats.Window window) {
+        return stats.getRanking(window).borrows();
+    }
+
+    @Test
+    void countsOnlyClosedSlots() {
+        BorrowStats stats = manualStats(10);
+
+        stats.record(1L, 5);
+        assertThat(borrows(stats, BorrowStats.Window.ONE_MINUTE)).isZero();
+
+        stats.rotate();
+        assertThat(borrows(stats, BorrowStats.Window.ONE_MINUTE)).isEqualTo(5);
+        assertThat(borrows(stats, BorrowStats.Window.FIFTEEN_MINUTES)).isEqualTo(5);
+        assertThat(borrows(stats, BorrowStats.Window.ONE_HOUR)).isEqualTo(5);
+    }
+
+    @Test
+    void expiresASlotAfterEachWindowLength() {
+        BorrowStats stats = manualStats(10);
+        stats.record(1L, 5);
+
+        // 1m = 6 tranches de 10s: la tranche reste comptée pendant 6 rotations
+        rotate(stats, 6);
+        assertThat(borrows(stats, BorrowStats.Window.ONE_MINUTE)).isEqualTo(5);
+        rotate(stats, 1);
+        assertThat(borrows(stats, BorrowStats.Window.ONE_MINUTE)).isZero();
+        assertThat(borrows(stats, BorrowStats.Window.FIFTEEN_MINUTES)).isEqualTo(5);
+
+        rotate(stats, 90 - 7);
+        assertThat(borrows(stats, BorrowStats.Window.FIFTEEN_MINUTES)).isEqualTo(5);
+        rotate(stats, 1);
+        assertThat(borrows(stats, BorrowStats.Window.FIFTEEN_MINUTES)).isZero();
+        assertThat(borrows(stats, BorrowStats.Window.ONE_HOUR)).isEqualTo(5);
+
+        // 1h = tout l'anneau: la tranche est retirée quand la rotation 361 réutilise sa place
+        rotate(stats, 360 - 91);
+        assertThat(borrows(stats, BorrowStats.Window.ONE_HOUR)).isEqualTo(5);
+        rotate(stats, 1);
+        assertThat(borrows(stats, BorrowStats.Window.ONE_HOUR)).isZero();
+        assertThat(stats.getRanking(BorrowStats.Window.ONE_HOUR).top()).isEmpty();
+    }
+
+    @Test
+    void slidesWithOneBorrowPerSlot() {
+        BorrowStats stats = manualStats(10);
+
+        for (int slot = 0; slot < 20; slot++) {
+            stats.record(7L, 1);
+            stats.rotate();
+        }
+
+        assertThat(borrows(stats, BorrowStats.Window.ONE_MINUTE)).isEqualTo(6);
+        assertThat(borrows(stats, BorrowStats.Window.FIFTEEN_MINUTES)).isEqualTo(20);
+        assertThat(stats.getRanking(BorrowStats.Window.ONE_MINUTE).top())
+                .containsExactly(new BorrowStats.Entry(7L, 6));
+    }
+
+    @Test
+    void ranksTheMostBorrowedTitles() {
+        BorrowStats stats = manualStats(2);
+        stats.record(1L, 10);
+        stats.record(2L, 30);
+        stats.record(3L, 20);
+
+        stats.rotate();
+
+        List<BorrowStats.Entry> top = stats.getRanking(BorrowStats.Window.ONE_MINUTE).top();
+        assertThat(top).extracting(BorrowStats.Entry::bookId).containsExactly(2L, 3L);
+        // Count-min: estimation par excès, exacte pour quelques titres sur 512 colonnes
+        assertThat(top).extracting(BorrowStats.Entry::borrows).containsExactly(30L, 20L);
+        assertThat(borrows(stats, BorrowStats.Window.ONE_MINUTE)).isEqualTo(60);
+    }
+
+    @Test
+    void ignoresRecordsWhenDisabled() {
+        BorrowStats stats = new BorrowStats(new SimpleMeterRegistry(), false, 10, 64, 512);
+
+        stats.record(1L, 5);
+
+        assertThat(stats.isEnabled()).isFalse();
+        assertThat(borrows(stats, BorrowStats.Window.ONE_HOUR)).isZero();
+        assertThat(stats.getRanking(BorrowStats.Window.ONE_HOUR).top()).isEmpty();
+    }
+
+    @Test
+    void resolvesWindowTags() {
+        assertThat(BorrowStats.Window.fromTag("15M")).contains(BorrowStats.Window.FIFTEEN_MINUTES);
+        assertThat(BorrowStats.Window.fromTag("2h")).isEmpty();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.book.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BorrowQueueTest {
+
+    private final BookService bookService = mock(BookService.class);
+    // Stock restant par livre, décrémenté par les groupes appliqués
+    private final Map<Long, AtomicInteger> stock = new ConcurrentHashMap<>();
+    // Emprunts reçus par BookService.borrowBooks, tous groupes confondus
+    private final AtomicInteger applied = new AtomicInteger();
+    private BorrowQueue queue;
+
+    /**
+     * BookService simulé: sert les emprunts d'un groupe dans l'ordre tant qu'il reste du stock
+     */
+    @BeforeEach
+    void serveFromStock() {
+        when(bookService.borrowBooks(anyLong(), anyInt())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            int count = invocation.getArgument(1);
+            applied.addAndGet(count);
+            AtomicInteger remaining = stock.get(id);
+            List<BorrowResult> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int previous = remaining.get();
+                results.add(previous > 0
+                        ? BorrowResult.borrowed(id, 0L, "Title", "Author", previous, remaining.decrementAndGet(), null)
+                        : BorrowResult.outOfStock(id, 0L, "Title", "Author"));
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    private BorrowQueue start(int workers, int queueCapacity) {
+        queue = new BorrowQueue(bookService, new SimpleMeterRegistry(), true, workers, queueCapacity,
+                500, Duration.ofMillis(2), Duration.ofMinutes(1));
+        return queue;
+    }
+
+    private void stockOf(long bookId, int initial) {
+        stock.put(bookId, new AtomicInteger(initial));
+    }
+
+    private static BorrowResult await(BorrowTicket ticket) throws Exception {
+        return ticket.completion().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void servesBorrowsOfABookInArrivalOrder() throws Exception {
+        stockOf(1L, 100);
+        stockOf(2L, 100);
+        start(2, 1_000);
+
+        List<BorrowTicket> first = new ArrayList<>();
+        List<BorrowTicket> second = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            first.add(queue.submit(1L));
+            second.add(queue.submit(2L));
+        }
+
+        for (List<BorrowTicket> tickets : List.of(first, second)) {
+            for (int i = 0; i < tickets.size(); i++) {
+                BorrowResult result = await(tickets.get(i));
+                if (i < 100) {
+                    // Le i-ème emprunt arrivé voit le stock initial moins les i précédents
+                    assertThat(result.status()).isEqualTo(BorrowStatus.BORROWED);
+                    assertThat(result.previousStock()).isEqualTo(100 - i);
+                } else {
+                    assertThat(result.status()).isEqualTo(BorrowStatus.OUT_OF_STOCK);
+                }
+            }
+        }
+    }
+
+    @Test
+    void appliesEachTicketExactlyOnce() throws Exception {
+        stockOf(1L, 1_000);
+        stockOf(2L, 1_000);
+        stockOf(3L, 1_000);
+        start(4, 10_000);
+
+        List<BorrowTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 900; i++) {
+            tickets.add(queue.submit(1L + i % 3));
+        }
+        for (BorrowTicket ticket : tickets) {
+            assertThat(await(ticket).success()).isTrue();
+        }
+
+        assertThat(applied.get()).isEqualTo(900);
+        stock.values().forEach(remaining -> assertThat(remaining.get()).isEqualTo(700));
+    }
+
+    @Test
+    void failsTheGroupWithoutRetryWhenTheTransactionFails() throws Exception {
+        when(bookService.borrowBooks(anyLong(), anyInt())).thenAnswer(invocation -> {
+            applied.addAndGet(invocation.getArgument(1));
+            throw new IllegalStateException("Deadlock");
+        });
+        start(1, 100);
+
+        List<BorrowTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tickets.add(queue.submit(1L));
+        }
+
+        for (BorrowTicket ticket : tickets) {
+            BorrowResult result = await(ticket);
+            assertThat(result.status()).isEqualTo(BorrowStatus.FAILED);
+            assertThat(result.error()).isEqualTo("Deadlock");
+        }
+        assertThat(applied.get()).isEqualTo(10);
+    }
+
+    @Test
+    void failsTheGroupWhenPricingCompletesExceptionally() throws Exception {
+        when(bookService.borrowBooks(anyLong(), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Pricing lost")));
+        start(1, 100);
+
+        BorrowTicket ticket = queue.submit(1L);
+
+        assertThat(await(ticket).status()).isEqualTo(BorrowStatus.FAILED);
+    }
+
+    @Test
+    void rejectsWhenThePartitionIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.borrowBooks(anyLong(), anyInt())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return CompletableFuture.completedFuture(List.of(BorrowResult.notFound(1L, 0L)));
+        });
+        start(1, 1);
+
+        // Le worker est bloqué sur le premier emprunt, le second occupe l'unique place de la file
+        BorrowTicket inProgress = queue.submit(1L);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        BorrowTicket queued = queue.submit(1L);
+
+        assertThatThrownBy(() -> queue.submit(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("full");
+
+        release.countDown();
+        assertThat(await(inProgress).status()).isEqualTo(BorrowStatus.NOT_FOUND);
+        assertThat(await(queued).status()).isEqualTo(BorrowStatus.NOT_FOUND);
+        assertThat(queue.getTicket(queued.getId())).isPresent();
+    }
+
+    @Test
+    void refusesSubmissionsWhenDisabled() {
+        queue = new BorrowQueue(bookService, new SimpleMeterRegistry(), false, 4, 100,
+                500, Duration.ofMillis(2), Duration.ofMinutes(1));
+
+        assertThat(queue.isEnabled()).isFalse();
+        assertThatThrownBy(() -> queue.submit(1L)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.book.service;
+
+import com.example.book.entity.Book;
+import com.example.book.metrics.BorrowTrace;
+import com.example.book.repository.BookView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pages du catalogue en cache de requêtes après un emprunt que Hibernate ne voit pas
+ * Mode STRIPED: un livre non réparti suit le chemin ATOMIC (UPDATE JDBC), un livre
+ * réparti celui des seaux.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "book.borrow.stock-mode=striped")
+@ActiveProfiles("dev")
+class CatalogCacheInvalidationTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookInventoryService inventoryService;
+
+    @Test
+    void atomicBorrowOfLastCopyDropsBookFromCachedAvailablePage() {
+        Book book = bookService.createBook(new Book("Atomic", "Author", 1));
+
+        assertThat(availablePageIds(book)).contains(book.getId());
+        assertThat(inventoryService.decrementStock(book.getId(), trace(book)).remainingStock()).isZero();
+
+        assertThat(availablePageIds(book)).doesNotContain(book.getId());
+    }
+
+    @Test
+    void bucketBorrowOfLastCopyDropsBookFromCachedAvailablePage() {
+        Book book = bookService.createBook(new Book("Striped", "Author", 1));
+        inventoryService.stripeStock(book.getId(), 2);
+
+        assertThat(availablePageIds(book)).contains(book.getId());
+        assertThat(inventoryService.decrementStock(book.getId(), trace(book)).remainingStock()).isZero();
+
+        assertThat(availablePageIds(book)).doesNotContain(book.getId());
+    }
+
+    @Test
+    void bucketBorrowUpdatesStockOfCachedCataloguePage() {
+        Book book = bookService.createBook(new Book("Striped page", "Author", 4));
+        inventoryService.stripeStock(book.getId(), 2);
+
+        assertThat(cataloguePageStock(book)).isEqualTo(4);
+        inventoryService.decrementStock(book.getId(), trace(book));
+
+        assertThat(cataloguePageStock(book)).isEqualTo(3);
+    }
+
+    // Même curseur à chaque appel: la seconde lecture est servie par le cache si rien ne l'invalide
+    private List<Long> availablePageIds(Book book) {
+        return bookService.getAvailableBooks(book.getId() - 1, 10).books().stream()
+                .map(BookView::id)
+                .toList();
+    }
+
+    private int cataloguePageStock(Book book) {
+        return bookService.getAllBooks(book.getId() - 1, 1).books().get(0).stock();
+    }
+
+    private static BorrowTrace trace(Book book) {
+        return new BorrowTrace(book.getId(), "striped");
+    }
+}
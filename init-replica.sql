@@ -0,0 +1,18 @@
+-- ===========================================
+-- Réplica MySQL en lecture (docker-compose.replica.yml)
+-- Exécuté une seule fois, à la création du volume du réplica
+-- ===========================================
+
+-- Utilisateur applicatif en lecture seule, propre au réplica
+CREATE USER IF NOT EXISTS 'booksreader'@'%' IDENTIFIED BY 'booksreader';
+GRANT SELECT ON books.* TO 'booksreader'@'%';
+
+-- Réplication depuis la primaire (GTID: reprise automatique de la position)
+CHANGE REPLICATION SOURCE TO
+    SOURCE_HOST = 'mysql',
+    SOURCE_PORT = 3306,
+    SOURCE_USER = 'root',
+    SOURCE_PASSWORD = 'rootpass',
+    SOURCE_AUTO_POSITION = 1,
+    GET_SOURCE_PUBLIC_KEY = 1;
+START REPLICA;
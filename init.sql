@@ -19,13 +19,26 @@ FLUSH PRIVILEGES;
 -- Mais voici un exemple de structure pour référence:
 --
 -- CREATE TABLE IF NOT EXISTS books (
---     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+--     id BIGINT PRIMARY KEY,                -- IDs fournis par la table books_seq (pooled)
 --     title VARCHAR(255) NOT NULL,
 --     author VARCHAR(255) NOT NULL,
 --     stock INT NOT NULL DEFAULT 0,
+--     version BIGINT NOT NULL DEFAULT 0,         -- verrouillage optimiste (@Version)
+--     stock_buckets INT NOT NULL DEFAULT 0,      -- seaux de stock (mode striped), 0 si non réparti
 --     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
 --     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 -- ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+--
+-- Seaux de stock des livres répartis (book.borrow.stock-mode=striped):
+-- CREATE TABLE IF NOT EXISTS book_stock_buckets (
+--     book_id BIGINT NOT NULL,
+--     bucket INT NOT NULL,
+--     stock INT NOT NULL,
+--     PRIMARY KEY (book_id, bucket)
+-- ) ENGINE=InnoDB;
+--
+-- Index FULLTEXT pour GET /books/search (créé au démarrage par book-service):
+-- CREATE FULLTEXT INDEX ft_books_title_author ON books (title, author);
 
 -- Données initiales (optionnel - le DataInitializer Java s'en charge aussi)
 -- INSERT INTO books (title, author, stock) VALUES 
@@ -0,0 +1,107 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latences et résultats d'un endpoint, relevés par intervalle
+ *
+ * Les latences (en microsecondes) sont enregistrées sans verrou par les threads
+ * de réponse; le thread de rapport récupère l'histogramme de l'intervalle écoulé
+ * et le cumule par phase (baseline, outage, recovery, ou palier de débit).
+ */
+final class EndpointStats {
+
+    private final String name;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder degraded = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Map<String, Histogram> byPhase = new LinkedHashMap<>();
+    private final Map<String, Long> errorsByPhase = new LinkedHashMap<>();
+    private Histogram intervalHistogram;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * @param latencyNanos temps écoulé depuis l'instant d'envoi prévu
+     * @param status       code HTTP
+     * @param degradedPrice réponse servie avec un prix de secours (CACHED / LAST_KNOWN / FALLBACK)
+     */
+    void record(long latencyNanos, int status, boolean degradedPrice) {
+        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else if (degradedPrice) {
+            degraded.increment();
+        } else {
+            ok.increment();
+        }
+    }
+
+    /**
+     * Échec sans réponse HTTP (timeout, connexion refusée, trop de requêtes en vol)
+     */
+    void recordFailure(long latencyNanos) {
+        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        failures.increment();
+    }
+
+    /**
+     * Relève l'intervalle écoulé et le cumule dans la phase courante
+     * Appelé uniquement par le thread de rapport.
+     */
+    Interval sample(String phase, double seconds) {
+        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        byPhase.computeIfAbsent(phase, p -> new Histogram(3)).add(intervalHistogram);
+        long intervalServerErrors = serverErrors.sumThenReset();
+        long intervalFailures = failures.sumThenReset();
+        errorsByPhase.merge(phase, intervalServerErrors + intervalFailures, Long::sum);
+        return new Interval(name, phase, intervalHistogram.getTotalCount() / seconds,
+                ok.sumThenReset(), degraded.sumThenReset(), clientErrors.sumThenReset(),
+                intervalServerErrors, intervalFailures,
+                millis(intervalHistogram, 50), millis(intervalHistogram, 99), millis(intervalHistogram, 99.9),
+                intervalHistogram.getTotalCount() == 0 ? 0 : intervalHistogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * @return histogramme cumulé par phase, dans l'ordre d'apparition
+     */
+    Map<String, Histogram> phases() {
+        return byPhase;
+    }
+
+    /**
+     * @return réponses 5xx et échecs sans réponse cumulés d'une phase
+     */
+    long errors(String phase) {
+        return errorsByPhase.getOrDefault(phase, 0L);
+    }
+
+    static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Statistiques d'un intervalle (latences en millisecondes)
+     */
+    record Interval(String endpoint, String phase, double throughput, long ok, long degraded,
+                    long clientErrors, long serverErrors, long failures,
+                    double p50, double p99, double p999, double max) {
+    }
+}
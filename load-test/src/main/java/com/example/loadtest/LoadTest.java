@@ -0,0 +1,316 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Test de charge de bout en bout rejouant les scénarios de résilience du README
+ *
+ * 1. lance pricing-service et book-service (profil dev, H2) à partir de leurs jars
+ * 2. crée les livres du test via POST /books/import
+ * 3. envoie un trafic en modèle ouvert sur POST /books/{id}/borrow et GET /books
+ * 4. bascule pricing-service DOWN puis UP (POST /toggleDown) en cours de test
+ * 5. affiche débit et latences p50/p99/p999 par intervalle et par phase
+ *    (baseline, outage, recovery), avec l'état du circuit breaker "pricing"
+ *
+ * Le rapport par intervalle est aussi écrit en CSV (--report).
+ *
+ * Avec --rate-steps, le trafic monte par paliers (une phase par palier) et le
+ * résumé donne le palier le plus élevé tenu sous --slo-p99, avec la concurrence
+ * moyenne correspondante: de quoi comparer les profils d'exécution (threads
+ * Tomcat ou virtual-threads) face à un pricing-service lent (--pricing-latency).
+ */
+public final class LoadTest {
+
+    private static final String BOOK_TITLE_PREFIX = "Load test book ";
+    private static final Pattern BOOK_ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern CIRCUIT_BREAKER_STATE = Pattern.compile("\"pricing\":\\{[^}]*?\"state\":\"(\\w+)\"");
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final EndpointStats borrows = new EndpointStats("borrow");
+    private final EndpointStats listings = new EndpointStats("list");
+    private volatile String phase = "baseline";
+
+    private LoadTest(LoadTestConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestConfig.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        List<ServiceProcess> services = new ArrayList<>();
+        try {
+            if (config.startServices()) {
+                services.add(ServiceProcess.start("pricing-service", config.pricingJar(), config.pricingPort(),
+                        concat(List.of("--logging.level.com.example.pricing=WARN"), config.pricingArgs()), client));
+                services.add(ServiceProcess.start("book-service", config.bookJar(), config.bookPort(),
+                        concat(List.of(
+                                "--spring.profiles.active=dev",
+                                "--pricing.service.url=" + config.pricingUrl(),
+                                "--spring.jpa.show-sql=false",
+                                "--logging.level.root=INFO",
+                                "--logging.level.com.example.book=WARN",
+                                "--logging.level.io.github.resilience4j=WARN",
+                                "--logging.level.org.hibernate.SQL=WARN",
+                                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"),
+                                config.bookArgs()), client));
+            }
+
+            long[] bookIds = seedBooks();
+            if (config.pricingLatency() != null) {
+                injectPricingLatency(config.pricingLatency());
+            }
+            if (config.rateSteps().isEmpty()) {
+                System.out.printf("Running %.0f req/s for %s (borrow ratio %.2f, %d books)%n",
+                        config.rate(), config.duration(), config.borrowRatio(), bookIds.length);
+            } else {
+                System.out.printf("Running rate steps %s req/s, %s each (borrow ratio %.2f, %d books)%n",
+                        config.rateSteps(), config.duration(), config.borrowRatio(), bookIds.length);
+            }
+            drive(bookIds);
+            printSummary();
+            if (!config.rateSteps().isEmpty()) {
+                printCapacity();
+            }
+
+        } finally {
+            for (int i = services.size() - 1; i >= 0; i--) {
+                services.get(i).close();
+            }
+        }
+    }
+
+    private void drive(long[] bookIds) throws IOException, InterruptedException {
+        Files.createDirectories(config.report().toAbsolutePath().getParent());
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(config.report()))) {
+            report.println("elapsed_s,phase,circuit_breaker,endpoint,throughput,ok,degraded,"
+                    + "client_errors,server_errors,failures,p50_ms,p99_ms,p999_ms,max_ms");
+            System.out.printf("%7s %-9s %-10s %-7s %8s %7s %8s %5s %5s %5s %9s %9s %9s %9s%n",
+                    "time", "phase", "cb", "endpoint", "req/s", "ok", "degraded", "4xx", "5xx", "fail",
+                    "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+            long start = System.nanoTime();
+            long intervalMillis = config.reportInterval().toMillis();
+            scheduler.scheduleAtFixedRate(() -> report(report, start, intervalMillis / 1000.0),
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+            if (config.outageAt() != null) {
+                scheduler.schedule(() -> togglePricing("outage"),
+                        config.outageAt().toMillis(), TimeUnit.MILLISECONDS);
+                scheduler.schedule(() -> togglePricing("recovery"),
+                        config.outageAt().plus(config.outageDuration()).toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            OpenModelDriver driver = new OpenModelDriver(client, config.bookServiceUrl(), bookIds,
+                    config.borrowRatio(), config.maxInFlight(), borrows, listings);
+            if (config.rateSteps().isEmpty()) {
+                driver.run(config.rate(), config.duration());
+            } else {
+                for (double rate : config.rateSteps()) {
+                    phase = stepPhase(rate);
+                    driver.run(rate, config.duration());
+                }
+            }
+
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            // Dernier intervalle (partiel), ignoré s'il est négligeable
+            double remainder = ((System.nanoTime() - start) / 1e6 % intervalMillis) / 1000.0;
+            if (remainder >= 0.5) {
+                report(report, start, remainder);
+            }
+        }
+    }
+
+    private void report(PrintWriter report, long start, double seconds) {
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        String circuitBreaker = circuitBreakerState();
+        for (EndpointStats stats : List.of(borrows, listings)) {
+            EndpointStats.Interval interval = stats.sample(phase, seconds);
+            System.out.printf(Locale.ROOT, "%6.0fs %-9s %-10s %-7s %8.1f %7d %8d %5d %5d %5d %9.1f %9.1f %9.1f %9.1f%n",
+                    elapsed, interval.phase(), circuitBreaker, interval.endpoint(), interval.throughput(),
+                    interval.ok(), interval.degraded(), interval.clientErrors(), interval.serverErrors(),
+                    interval.failures(), interval.p50(), interval.p99(), interval.p999(), interval.max());
+            report.printf(Locale.ROOT, "%.1f,%s,%s,%s,%.1f,%d,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f%n",
+                    elapsed, interval.phase(), circuitBreaker, interval.endpoint(), interval.throughput(),
+                    interval.ok(), interval.degraded(), interval.clientErrors(), interval.serverErrors(),
+                    interval.failures(), interval.p50(), interval.p99(), interval.p999(), interval.max());
+        }
+        report.flush();
+    }
+
+    private void printSummary() {
+        System.out.println();
+        System.out.printf("%-7s %-9s %9s %9s %9s %9s %9s%n", "endpoint", "phase", "count", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (EndpointStats stats : List.of(borrows, listings)) {
+            stats.phases().forEach((name, histogram) -> System.out.printf(Locale.ROOT,
+                    "%-7s %-9s %9d %9.1f %9.1f %9.1f %9.1f%n",
+                    stats.name(), name, histogram.getTotalCount(),
+                    EndpointStats.millis(histogram, 50), EndpointStats.millis(histogram, 99),
+                    EndpointStats.millis(histogram, 99.9), maxMillis(histogram)));
+        }
+        System.out.println("Report written to " + config.report().toAbsolutePath());
+    }
+
+    /**
+     * Paliers de débit: p99 des emprunts, erreurs et concurrence moyenne
+     * (loi de Little: débit × latence moyenne), puis le palier le plus élevé
+     * tenu (p99 sous --slo-p99, aucune réponse 5xx ni échec)
+     */
+    private void printCapacity() {
+        System.out.println();
+        System.out.printf("%-9s %9s %9s %7s %11s %s%n", "step", "req/s", "p99 ms", "errors", "concurrency", "slo");
+        double sloMillis = config.sloP99().toNanos() / 1e6;
+        double seconds = config.duration().toNanos() / 1e9;
+        String sustained = null;
+        for (double rate : config.rateSteps()) {
+            String step = stepPhase(rate);
+            Histogram borrowHistogram = borrows.phases().get(step);
+            if (borrowHistogram == null) {
+                continue;
+            }
+            Histogram all = borrowHistogram.copy();
+            Histogram listHistogram = listings.phases().get(step);
+            if (listHistogram != null) {
+                all.add(listHistogram);
+            }
+            double throughput = all.getTotalCount() / seconds;
+            // Latences en microsecondes
+            double concurrency = throughput * all.getMean() / 1e6;
+            double p99 = EndpointStats.millis(borrowHistogram, 99);
+            long errors = borrows.errors(step) + listings.errors(step);
+            boolean held = p99 <= sloMillis && errors == 0;
+            if (held) {
+                sustained = String.format(Locale.ROOT, "%.0f req/s, %.1f concurrent requests", throughput, concurrency);
+            }
+            System.out.printf(Locale.ROOT, "%-9s %9.1f %9.1f %7d %11.1f %s%n",
+                    step, throughput, p99, errors, concurrency, held ? "ok" : "missed");
+        }
+        System.out.printf("Max sustainable (p99 <= %s, no errors): %s%n",
+                config.sloP99(), sustained == null ? "none" : sustained);
+    }
+
+    private static String stepPhase(double rate) {
+        return String.format(Locale.ROOT, "rate-%.0f", rate);
+    }
+
+    /**
+     * Latence fixe sur toutes les réponses de pricing-service (voir PUT /admin/faults)
+     */
+    private void injectPricingLatency(Duration latency) throws IOException, InterruptedException {
+        String faults = "{\"defaults\":{\"latency\":{\"distribution\":\"fixed\",\"valueMs\":"
+                + latency.toMillis() + "}}}";
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(config.pricingUrl() + "/admin/faults"))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(faults))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Pricing latency injection failed: " + response.statusCode() + " " + response.body());
+        }
+        System.out.printf("Pricing-service latency: %s%n", latency);
+    }
+
+    private void togglePricing(String nextPhase) {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(config.pricingUrl() + "/toggleDown"))
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            phase = nextPhase;
+            System.out.printf(">>> pricing-service toggled: %s%n", response.body());
+        } catch (IOException | InterruptedException e) {
+            System.out.printf(">>> pricing-service toggle failed: %s%n", e);
+        }
+    }
+
+    private String circuitBreakerState() {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(config.bookServiceUrl() + "/actuator/circuitbreakers"))
+                            .timeout(Duration.ofSeconds(2))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = CIRCUIT_BREAKER_STATE.matcher(response.body());
+            return matcher.find() ? matcher.group(1) : "?";
+        } catch (IOException | InterruptedException e) {
+            return "?";
+        }
+    }
+
+    /**
+     * Crée les livres du test (stock quasi illimité) et retourne leurs IDs
+     */
+    private long[] seedBooks() throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder("title,author,stock\n");
+        for (int i = 0; i < config.books(); i++) {
+            csv.append(BOOK_TITLE_PREFIX).append(i).append(",Load test author ").append(i % 50)
+                    .append(',').append(1_000_000_000).append('\n');
+        }
+        HttpResponse<String> imported = client.send(
+                HttpRequest.newBuilder(URI.create(config.bookServiceUrl() + "/books/import"))
+                        .header("Content-Type", "text/csv")
+                        .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Book import failed: " + imported.statusCode() + " " + imported.body());
+        }
+
+        HttpResponse<Stream<String>> stream = client.send(
+                HttpRequest.newBuilder(URI.create(config.bookServiceUrl() + "/books/stream")).build(),
+                HttpResponse.BodyHandlers.ofLines());
+        long[] bookIds = stream.body()
+                .filter(line -> line.contains(BOOK_TITLE_PREFIX))
+                .map(BOOK_ID::matcher)
+                .filter(Matcher::find)
+                .mapToLong(matcher -> Long.parseLong(matcher.group(1)))
+                .toArray();
+        if (bookIds.length == 0) {
+            throw new IllegalStateException("No load test books found after import");
+        }
+        return bookIds;
+    }
+
+    private static double maxMillis(Histogram histogram) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1000.0;
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+}
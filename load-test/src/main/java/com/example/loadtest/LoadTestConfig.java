@@ -0,0 +1,147 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Paramètres du test de charge, lus depuis les arguments "--clé=valeur"
+ *
+ * @param rate            requêtes par seconde (modèle ouvert: indépendant des temps de réponse)
+ * @param rateSteps       paliers de débit successifs (recherche de capacité), vide = débit unique rate
+ * @param duration        durée totale du test, ou d'un palier
+ * @param sloP99          p99 maximal des emprunts pour qu'un palier soit tenu
+ * @param pricingLatency  latence fixe injectée dans pricing-service (PUT /admin/faults), null = aucune
+ * @param borrowRatio     part des requêtes POST /books/{id}/borrow (le reste: GET /books)
+ * @param books           nombre de livres créés avant le test (POST /books/import)
+ * @param reportInterval  période d'affichage des statistiques
+ * @param outageAt        instant de la panne simulée (POST /toggleDown), null = pas de panne
+ * @param outageDuration  durée de la panne
+ * @param maxInFlight     requêtes simultanées max (au-delà, la requête est comptée en échec)
+ * @param startServices   lancer les jars des deux services (sinon: services déjà démarrés)
+ * @param bookServiceUrl  URL de book-service
+ * @param pricingUrl      URL de pricing-service
+ * @param bookJar         jar Spring Boot de book-service
+ * @param pricingJar      jar Spring Boot de pricing-service
+ * @param bookArgs        arguments supplémentaires de book-service (ex: réglages Resilience4j)
+ * @param pricingArgs     arguments supplémentaires de pricing-service
+ * @param report          fichier CSV du rapport
+ */
+record LoadTestConfig(
+        double rate,
+        List<Double> rateSteps,
+        Duration duration,
+        Duration sloP99,
+        Duration pricingLatency,
+        double borrowRatio,
+        int books,
+        Duration reportInterval,
+        Duration outageAt,
+        Duration outageDuration,
+        int maxInFlight,
+        boolean startServices,
+        String bookServiceUrl,
+        String pricingUrl,
+        Path bookJar,
+        Path pricingJar,
+        List<String> bookArgs,
+        List<String> pricingArgs,
+        Path report) {
+
+    private static final Set<String> KEYS = Set.of(
+            "rate", "rate-steps", "duration", "slo-p99", "pricing-latency", "borrow-ratio", "books", "interval", "outage-at", "outage-duration",
+            "max-in-flight", "start-services", "book-port", "pricing-port", "book-url", "pricing-url",
+            "book-jar", "pricing-jar", "book-args", "pricing-args", "report");
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            String key = arg.substring(2, equals);
+            if (!KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unknown option --" + key + " (known: " + KEYS + ")");
+            }
+            options.put(key, arg.substring(equals + 1));
+        }
+
+        int bookPort = Integer.parseInt(options.getOrDefault("book-port", "18080"));
+        int pricingPort = Integer.parseInt(options.getOrDefault("pricing-port", "18081"));
+        List<Double> rateSteps = rates(options.get("rate-steps"));
+        // Pas de panne par défaut pendant une recherche de capacité
+        Duration outageDuration = duration(options.getOrDefault("outage-duration", rateSteps.isEmpty() ? "30s" : "0s"));
+        String pricingLatency = options.get("pricing-latency");
+
+        return new LoadTestConfig(
+                Double.parseDouble(options.getOrDefault("rate", "100")),
+                rateSteps,
+                duration(options.getOrDefault("duration", rateSteps.isEmpty() ? "2m" : "30s")),
+                duration(options.getOrDefault("slo-p99", "500ms")),
+                pricingLatency == null ? null : duration(pricingLatency),
+                Double.parseDouble(options.getOrDefault("borrow-ratio", "0.5")),
+                Integer.parseInt(options.getOrDefault("books", "1000")),
+                duration(options.getOrDefault("interval", "5s")),
+                outageDuration.isZero() ? null : duration(options.getOrDefault("outage-at", "40s")),
+                outageDuration,
+                Integer.parseInt(options.getOrDefault("max-in-flight", "2000")),
+                Boolean.parseBoolean(options.getOrDefault("start-services", "true")),
+                options.getOrDefault("book-url", "http://localhost:" + bookPort),
+                options.getOrDefault("pricing-url", "http://localhost:" + pricingPort),
+                Path.of(options.getOrDefault("book-jar", "../book-service/target/book-service.jar")),
+                Path.of(options.getOrDefault("pricing-jar", "../pricing-service/target/pricing-service.jar")),
+                words(options.get("book-args")),
+                words(options.get("pricing-args")),
+                Path.of(options.getOrDefault("report", "target/load-report.csv")));
+    }
+
+    int bookPort() {
+        return port(bookServiceUrl);
+    }
+
+    int pricingPort() {
+        return port(pricingUrl);
+    }
+
+    /**
+     * Durée au format 500ms, 30s, 2m ou 1h
+     */
+    static Duration duration(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Invalid duration: " + value);
+        };
+    }
+
+    private static List<String> words(String value) {
+        return value == null || value.isBlank() ? List.of() : Arrays.asList(value.trim().split("\\s+"));
+    }
+
+    /**
+     * Débits séparés par des virgules, ex: 100,200,400
+     */
+    private static List<Double> rates(String value) {
+        return value == null || value.isBlank() ? List.of() : Arrays.stream(value.split(","))
+                .map(String::trim)
+                .map(Double::parseDouble)
+                .toList();
+    }
+
+    private static int port(String url) {
+        return URI.create(url).getPort();
+    }
+}
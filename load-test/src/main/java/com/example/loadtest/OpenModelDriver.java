@@ -0,0 +1,112 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Générateur de charge en modèle ouvert
+ *
+ * Les requêtes partent à intervalle fixe (1 / rate), qu'elles aient reçu une
+ * réponse ou non: un service ralenti ne ralentit pas la charge. La latence est
+ * mesurée depuis l'instant d'envoi prévu, ce qui inclut le retard éventuel du
+ * générateur (pas d'omission coordonnée).
+ */
+final class OpenModelDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String bookServiceUrl;
+    private final long[] bookIds;
+    private final double borrowRatio;
+    private final int maxInFlight;
+    private final EndpointStats borrows;
+    private final EndpointStats listings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenModelDriver(HttpClient client, String bookServiceUrl, long[] bookIds, double borrowRatio,
+                    int maxInFlight, EndpointStats borrows, EndpointStats listings) {
+        this.client = client;
+        this.bookServiceUrl = bookServiceUrl;
+        this.bookIds = bookIds;
+        this.borrowRatio = borrowRatio;
+        this.maxInFlight = maxInFlight;
+        this.borrows = borrows;
+        this.listings = listings;
+    }
+
+    /**
+     * Envoie la charge pendant la durée donnée puis attend les dernières réponses
+     */
+    void run(double rate, Duration duration) {
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * period;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(intendedStart);
+        }
+
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    private void send(long intendedStart) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean borrow = random.nextDouble() < borrowRatio;
+        EndpointStats stats = borrow ? borrows : listings;
+
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            stats.recordFailure(System.nanoTime() - intendedStart);
+            return;
+        }
+
+        HttpRequest request = borrow
+                ? HttpRequest.newBuilder(URI.create(bookServiceUrl + "/books/" + bookIds[random.nextInt(bookIds.length)] + "/borrow"))
+                        .timeout(REQUEST_TIMEOUT)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build()
+                : HttpRequest.newBuilder(URI.create(bookServiceUrl + "/books?size=20"))
+                        .timeout(REQUEST_TIMEOUT)
+                        .GET()
+                        .build();
+
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - intendedStart;
+                    inFlight.decrementAndGet();
+                    if (error != null) {
+                        stats.recordFailure(latency);
+                    } else {
+                        stats.record(latency, response.statusCode(), borrow && isDegraded(response.body()));
+                    }
+                });
+    }
+
+    /**
+     * Emprunt réussi mais prix non fourni par pricing-service (voir priceSource)
+     */
+    private static boolean isDegraded(String body) {
+        return body.contains("\"priceSource\":\"CACHED\"")
+                || body.contains("\"priceSource\":\"LAST_KNOWN\"")
+                || body.contains("\"priceSource\":\"FALLBACK\"");
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.pricing.catalog;
+
+/**
+ * Table de hachage long -> double immuable, à adressage ouvert (sondage linéaire)
+ *
+ * Les clés et valeurs sont stockées dans deux tableaux primitifs: aucune
+ * allocation ni boxing à la lecture. Une instance n'est jamais modifiée après
+ * sa construction, elle peut donc être lue sans verrou par plusieurs threads.
+ * Les modifications passent par un {@link Builder} qui produit une nouvelle instance.
+ */
+public final class LongDoubleHashMap {
+
+    private static final long EMPTY_KEY = 0L;
+    private static final float LOAD_FACTOR = 0.7f;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final long[] keys;
+    private final double[] values;
+    private final int mask;
+    private final int size;
+    // La clé 0 sert de marqueur de case vide: elle est stockée à part
+    private final boolean hasZeroKey;
+    private final double zeroValue;
+
+    private LongDoubleHashMap(long[] keys, double[] values, int size, boolean hasZeroKey, double zeroValue) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+        this.hasZeroKey = hasZeroKey;
+        this.zeroValue = zeroValue;
+    }
+
+    /**
+     * @return table vide
+     */
+    public static LongDoubleHashMap empty() {
+        return new Builder(0).build();
+    }
+
+    /**
+     * Retourne la valeur associée à la clé, ou la valeur par défaut si absente
+     */
+    public double getOrDefault(long key, double defaultValue) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = hash(key) & mask;
+        while (true) {
+            long current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == EMPTY_KEY) {
+                return defaultValue;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey;
+        }
+        int index = hash(key) & mask;
+        while (true) {
+            long current = keys[index];
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY_KEY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parcourt toutes les entrées (ordre non spécifié)
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY_KEY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Crée un builder initialisé avec une copie des entrées de cette table
+     *
+     * @param additionalEntries nombre d'entrées supplémentaires attendues (pré-dimensionnement)
+     */
+    public Builder toBuilder(int additionalEntries) {
+        Builder builder = new Builder(size + Math.max(0, additionalEntries));
+        if (builder.keys.length == keys.length) {
+            // Même capacité: copie brute des tableaux, sans re-hachage
+            System.arraycopy(keys, 0, builder.keys, 0, keys.length);
+            System.arraycopy(values, 0, builder.values, 0, values.length);
+            builder.size = size;
+            builder.hasZeroKey = hasZeroKey;
+            builder.zeroValue = zeroValue;
+        } else {
+            forEach(builder::put);
+        }
+        return builder;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) LOAD_FACTOR);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, double value);
+    }
+
+    /**
+     * Construction mutable d'une {@link LongDoubleHashMap}
+     * Non thread-safe; l'instance ne doit plus être utilisée après {@link #build()}
+     */
+    public static final class Builder {
+
+        private long[] keys;
+        private double[] values;
+        private int size;
+        private boolean hasZeroKey;
+        private double zeroValue;
+
+        public Builder(int expectedSize) {
+            int capacity = capacityFor(expectedSize);
+            this.keys = new long[capacity];
+            this.values = new double[capacity];
+        }
+
+        public Builder put(long key, double value) {
+            if (key == EMPTY_KEY) {
+                if (!hasZeroKey) {
+                    size++;
+                }
+                hasZeroKey = true;
+                zeroValue = value;
+                return this;
+            }
+
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+            while (true) {
+                long current = keys[index];
+                if (current == key) {
+                    values[index] = value;
+                    return this;
+                }
+                if (current == EMPTY_KEY) {
+                    keys[index] = key;
+                    values[index] = value;
+                    if (++size > keys.length * LOAD_FACTOR) {
+                        grow();
+                    }
+                    return this;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public LongDoubleHashMap build() {
+            LongDoubleHashMap map = new LongDoubleHashMap(keys, values, size, hasZeroKey, zeroValue);
+            keys = null;
+            values = null;
+            return map;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            if (oldKeys.length >= MAX_CAPACITY) {
+                throw new IllegalStateException("LongDoubleHashMap capacity exceeded");
+            }
+            keys = new long[oldKeys.length << 1];
+            values = new double[oldKeys.length << 1];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                long key = oldKeys[i];
+                if (key != EMPTY_KEY) {
+                    int index = hash(key) & mask;
+                    while (keys[index] != EMPTY_KEY) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = key;
+                    values[index] = oldValues[i];
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "LongDoubleHashMap.Builder{size=" + size + ", capacity=" + (keys != null ? keys.length : 0) + '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LongDoubleHashMap{size=" + size + ", capacity=" + keys.length + '}';
+    }
+}
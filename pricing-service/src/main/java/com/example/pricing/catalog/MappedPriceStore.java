@@ -0,0 +1,118 @@
+package com.example.pricing.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Catalogue de prix persistant, projeté en mémoire (FileChannel.map)
+ *
+ * Format du fichier (little-endian):
+ * - en-tête de 16 octets: magic "PRCS" (int), version (int), nombre d'entrées (long)
+ * - puis les entrées triées par bookId croissant, 16 octets chacune: bookId (long), price (double)
+ *
+ * Aucune désérialisation à l'ouverture: les lectures font une recherche
+ * dichotomique directement dans la région projetée, les pages étant chargées
+ * à la demande par le système. L'ouverture est donc quasi instantanée quelle
+ * que soit la taille du catalogue. Le fichier est produit hors ligne par
+ * {@link PriceStoreBuilder}.
+ */
+public final class MappedPriceStore {
+
+    static final int MAGIC = 0x53435250; // "PRCS" en little-endian
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 16;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private MappedPriceStore(Path path, ByteBuffer buffer, int size) {
+        this.path = path;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Projette un fichier de prix en mémoire (lecture seule)
+     *
+     * @param path fichier produit par {@link PriceStoreBuilder}
+     * @return catalogue projeté
+     * @throws IOException si le fichier est illisible ou n'a pas le format attendu
+     */
+    public static MappedPriceStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Invalid price store size (" + fileSize + " bytes): " + path);
+            }
+
+            // La projection reste valide après fermeture du canal
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            int magic = buffer.getInt(0);
+            int version = buffer.getInt(4);
+            long count = buffer.getLong(8);
+            if (magic != MAGIC || version != FORMAT_VERSION) {
+                throw new IOException("Not a price store (magic=" + Integer.toHexString(magic)
+                        + ", version=" + version + "): " + path);
+            }
+            if (count < 0 || HEADER_SIZE + count * RECORD_SIZE != fileSize) {
+                throw new IOException("Truncated or corrupted price store (count=" + count
+                        + ", size=" + fileSize + "): " + path);
+            }
+            return new MappedPriceStore(path, buffer, (int) count);
+        }
+    }
+
+    /**
+     * @param bookId       ID du livre
+     * @param defaultPrice prix retourné si le livre est absent du fichier
+     * @return prix du livre
+     */
+    public double getOrDefault(long bookId, double defaultPrice) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER_SIZE + mid * RECORD_SIZE;
+            long key = buffer.getLong(offset);
+            if (key < bookId) {
+                low = mid + 1;
+            } else if (key > bookId) {
+                high = mid - 1;
+            } else {
+                return buffer.getDouble(offset + Long.BYTES);
+            }
+        }
+        return defaultPrice;
+    }
+
+    /**
+     * Parcourt toutes les entrées, par bookId croissant
+     */
+    public void forEach(LongDoubleHashMap.EntryConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            consumer.accept(buffer.getLong(offset), buffer.getDouble(offset + Long.BYTES));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedPriceStore{path=" + path + ", size=" + size + '}';
+    }
+}
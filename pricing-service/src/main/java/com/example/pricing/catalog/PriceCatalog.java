@@ -0,0 +1,242 @@
+package com.example.pricing.catalog;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Catalogue de prix copy-on-write (bookId -> price)
+ *
+ * Deux niveaux, publiés ensemble dans un état immuable:
+ * - les prix en mémoire ({@link LongDoubleHashMap}), alimentés par les mises à jour
+ * - un fichier projeté optionnel ({@link MappedPriceStore}), consulté ensuite
+ *
+ * Les lectures accèdent à l'état courant via une simple lecture volatile:
+ * aucun verrou, aucune allocation. Les écritures (upsert groupé, rechargement
+ * complet) construisent un nouvel état hors ligne puis le publient atomiquement;
+ * elles sont sérialisées entre elles mais ne bloquent jamais les lectures.
+ *
+ * Chaque publication incrémente la version du catalogue. Les derniers lots
+ * d'upsert sont conservés (MAX_RETAINED_BATCHES) pour la réplication:
+ * un réplica à jour jusqu'à la version v récupère les prix modifiés depuis
+ * ({@link #changesSince}), ou attend la prochaine publication
+ * ({@link #awaitVersionAfter}). Un remplacement complet impose de recharger
+ * l'instantané ({@link #snapshot}).
+ */
+public class PriceCatalog {
+
+    private static final int MAX_RETAINED_BATCHES = 1024;
+
+    private final Object writeLock = new Object();
+    private final long epoch = System.currentTimeMillis();
+    private volatile State state = new State(LongDoubleHashMap.empty(), null, 0, 0L, epoch);
+
+    // Lots publiés, du plus ancien au plus récent (protégés par writeLock)
+    private final Deque<Batch> batches = new ArrayDeque<>();
+    // Complété à la prochaine publication (protégé par writeLock)
+    private CompletableFuture<Long> nextVersion = new CompletableFuture<>();
+
+    /**
+     * @param bookId       ID du livre
+     * @param defaultPrice prix retourné si le livre est absent du catalogue
+     * @return prix du livre
+     */
+    public double getOrDefault(long bookId, double defaultPrice) {
+        State current = state;
+        double price = current.prices().getOrDefault(bookId, Double.NaN);
+        if (!Double.isNaN(price)) {
+            return price;
+        }
+        return current.store() != null ? current.store().getOrDefault(bookId, defaultPrice) : defaultPrice;
+    }
+
+    /**
+     * Ajoute ou met à jour un lot de prix, en une seule publication
+     * Le fichier projeté éventuel reste en place, les nouveaux prix le masquent.
+     *
+     * @param prices prix par ID de livre
+     * @return taille du catalogue après mise à jour
+     */
+    public int upsertAll(Map<Long, Double> prices) {
+        Map<Long, Double> changes = Collections.unmodifiableMap(new LinkedHashMap<>(prices));
+        synchronized (writeLock) {
+            State current = state;
+            LongDoubleHashMap.Builder builder = current.prices().toBuilder(prices.size());
+            // Seuls les livres absents des deux niveaux agrandissent le catalogue
+            int size = current.size();
+            for (Map.Entry<Long, Double> price : prices.entrySet()) {
+                if (!current.contains(price.getKey())) {
+                    size++;
+                }
+                builder.put(price.getKey(), price.getValue());
+            }
+            publish(builder.build(), current.store(), size, changes);
+            return size;
+        }
+    }
+
+    /**
+     * Remplace entièrement le catalogue par des prix en mémoire
+     * Le fichier projeté éventuel est détaché.
+     *
+     * @param prices nouveau contenu du catalogue
+     * @return taille du catalogue
+     */
+    public int replaceAll(Map<Long, Double> prices) {
+        LongDoubleHashMap.Builder builder = new LongDoubleHashMap.Builder(prices.size());
+        prices.forEach(builder::put);
+        LongDoubleHashMap next = builder.build();
+        synchronized (writeLock) {
+            publish(next, null, next.size(), null);
+        }
+        return next.size();
+    }
+
+    /**
+     * Remplace entièrement le catalogue par un fichier projeté
+     * Les prix en mémoire sont abandonnés.
+     *
+     * @param store fichier de prix projeté
+     * @return taille du catalogue
+     */
+    public int replaceAll(MappedPriceStore store) {
+        synchronized (writeLock) {
+            publish(LongDoubleHashMap.empty(), store, store.size(), null);
+        }
+        return store.size();
+    }
+
+    /**
+     * Publie un nouvel état (writeLock détenu)
+     *
+     * @param size    nombre de livres distincts des deux niveaux
+     * @param changes prix modifiés, null pour un remplacement complet
+     */
+    private void publish(LongDoubleHashMap prices, MappedPriceStore store, int size, Map<Long, Double> changes) {
+        long version = state.version() + 1;
+        state = new State(prices, store, size, version, System.currentTimeMillis());
+        if (changes == null) {
+            batches.clear();
+        }
+        batches.addLast(new Batch(version, changes));
+        if (batches.size() > MAX_RETAINED_BATCHES) {
+            batches.removeFirst();
+        }
+        CompletableFuture<Long> published = nextVersion;
+        nextVersion = new CompletableFuture<>();
+        // Réveille les réplicas en attente hors du chemin critique de l'écrivain
+        published.completeAsync(() -> version);
+    }
+
+    /**
+     * @return identifiant de cette instance du catalogue (versions non comparables entre epochs)
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return version courante (0 tant qu'aucune publication n'a eu lieu)
+     */
+    public long getVersion() {
+        return state.version();
+    }
+
+    /**
+     * Parcourt un état cohérent du catalogue: fichier projeté puis prix en
+     * mémoire (qui masquent le fichier, et sont donc émis après)
+     *
+     * @return version de l'état parcouru
+     */
+    public long snapshot(LongDoubleHashMap.EntryConsumer consumer) {
+        State current = state;
+        if (current.store() != null) {
+            current.store().forEach(consumer);
+        }
+        current.prices().forEach(consumer);
+        return current.version();
+    }
+
+    /**
+     * Prix modifiés depuis une version
+     *
+     * @param since version connue du réplica
+     * @return modifications cumulées, ou reset si elles ne peuvent être reconstituées
+     */
+    public PriceChanges changesSince(long since) {
+        synchronized (writeLock) {
+            State current = state;
+            if (since == current.version()) {
+                return new PriceChanges(epoch, since, current.publishedAt(), false, Map.of());
+            }
+            Batch oldest = batches.peekFirst();
+            if (since > current.version() || oldest == null || oldest.version() > since + 1) {
+                return reset(current);
+            }
+            Map<Long, Double> merged = new LinkedHashMap<>();
+            for (Batch batch : batches) {
+                if (batch.version() <= since) {
+                    continue;
+                }
+                if (batch.changes() == null) {
+                    return reset(current);
+                }
+                merged.putAll(batch.changes());
+            }
+            return new PriceChanges(epoch, current.version(), current.publishedAt(), false, merged);
+        }
+    }
+
+    private PriceChanges reset(State current) {
+        return new PriceChanges(epoch, current.version(), current.publishedAt(), true, Map.of());
+    }
+
+    /**
+     * @return futur complété dès que la version dépasse since (immédiatement si c'est déjà le cas);
+     *         propre à l'appelant, qui peut le compléter (délai d'attente) sans affecter les autres
+     */
+    public CompletableFuture<Long> awaitVersionAfter(long since) {
+        synchronized (writeLock) {
+            long version = state.version();
+            if (version > since) {
+                return CompletableFuture.completedFuture(version);
+            }
+            return nextVersion.copy();
+        }
+    }
+
+    /**
+     * @return nombre de livres ayant un prix (un livre présent en mémoire et dans le fichier compte une fois)
+     */
+    public int size() {
+        return state.size();
+    }
+
+    /**
+     * @return fichier projeté courant, ou null
+     */
+    public MappedPriceStore getStore() {
+        return state.store();
+    }
+
+    /**
+     * @param size nombre de livres distincts, calculé à la publication
+     */
+    private record State(LongDoubleHashMap prices, MappedPriceStore store, int size, long version, long publishedAt) {
+
+        // Les prix publiés sont finis: NaN signale l'absence dans le fichier
+        boolean contains(long bookId) {
+            return prices.containsKey(bookId)
+                    || (store != null && !Double.isNaN(store.getOrDefault(bookId, Double.NaN)));
+        }
+    }
+
+    /**
+     * Lot publié: prix modifiés, ou null pour un remplacement complet
+     */
+    private record Batch(long version, Map<Long, Double> changes) {
+    }
+}
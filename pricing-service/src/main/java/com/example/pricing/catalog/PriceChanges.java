@@ -0,0 +1,16 @@
+package com.example.pricing.catalog;
+
+import java.util.Map;
+
+/**
+ * Modifications du catalogue depuis une version donnée (réplication)
+ *
+ * @param epoch       identifiant de l'instance du catalogue (change au redémarrage)
+ * @param version     version courante du catalogue
+ * @param publishedAt instant de publication de cette version (epoch millis)
+ * @param reset       true si les modifications ne sont plus disponibles (catalogue
+ *                    remplacé, historique dépassé, autre epoch): recharger l'instantané
+ * @param prices      prix ajoutés ou modifiés depuis la version demandée (vide si reset)
+ */
+public record PriceChanges(long epoch, long version, long publishedAt, boolean reset, Map<Long, Double> prices) {
+}
@@ -0,0 +1,132 @@
+package com.example.pricing.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Outil hors ligne: construit un fichier {@link MappedPriceStore} à partir d'un CSV
+ *
+ * Le CSV contient une ligne "bookId,price" par livre; une ligne d'en-tête non
+ * numérique est ignorée. En cas de doublon, le dernier prix l'emporte.
+ * Le fichier est écrit à côté de la cible puis renommé atomiquement, un
+ * pricing-service en cours d'exécution ne voit donc jamais de fichier partiel.
+ *
+ * Usage (depuis le jar Spring Boot):
+ * java -cp pricing-service.jar -Dloader.main=com.example.pricing.catalog.PriceStoreBuilder \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher prices.csv prices.bin
+ */
+public final class PriceStoreBuilder {
+
+    private static final int WRITE_BUFFER_RECORDS = 64 * 1024;
+
+    private PriceStoreBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PriceStoreBuilder <prices.csv> <prices.bin>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        int count = build(Path.of(args[0]), Path.of(args[1]));
+        System.out.printf("Wrote %d prices to %s in %d ms%n",
+                count, args[1], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Lit le CSV et écrit le fichier de prix trié
+     *
+     * @return nombre d'entrées écrites
+     */
+    public static int build(Path csv, Path target) throws IOException {
+        LongDoubleHashMap prices = readCsv(csv);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        write(prices, tmp);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return prices.size();
+    }
+
+    /**
+     * Écrit un catalogue au format {@link MappedPriceStore}
+     */
+    public static void write(LongDoubleHashMap prices, Path target) throws IOException {
+        long[] bookIds = new long[prices.size()];
+        int[] next = {0};
+        prices.forEach((bookId, price) -> bookIds[next[0]++] = bookId);
+        Arrays.sort(bookIds);
+
+        try (FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(MappedPriceStore.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MappedPriceStore.MAGIC)
+                    .putInt(MappedPriceStore.FORMAT_VERSION)
+                    .putLong(bookIds.length)
+                    .flip();
+            writeFully(channel, header);
+
+            ByteBuffer records = ByteBuffer.allocateDirect(WRITE_BUFFER_RECORDS * MappedPriceStore.RECORD_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (long bookId : bookIds) {
+                if (!records.hasRemaining()) {
+                    records.flip();
+                    writeFully(channel, records);
+                    records.clear();
+                }
+                records.putLong(bookId).putDouble(prices.getOrDefault(bookId, Double.NaN));
+            }
+            records.flip();
+            writeFully(channel, records);
+            channel.force(true);
+        }
+    }
+
+    private static LongDoubleHashMap readCsv(Path csv) throws IOException {
+        LongDoubleHashMap.Builder builder = new LongDoubleHashMap.Builder(1024);
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    throw new IOException("Line " + lineNumber + ": expected 'bookId,price'");
+                }
+                long bookId;
+                double price;
+                try {
+                    bookId = Long.parseLong(line.substring(0, comma).strip());
+                    price = Double.parseDouble(line.substring(comma + 1).strip());
+                } catch (NumberFormatException e) {
+                    if (lineNumber == 1) {
+                        continue; // en-tête
+                    }
+                    throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+                if (!Double.isFinite(price) || price < 0) {
+                    throw new IOException("Line " + lineNumber + ": invalid price " + price);
+                }
+                builder.put(bookId, price);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.pricing.controller;
 
+import com.example.pricing.fault.FaultConfig;
+import com.example.pricing.fault.FaultInjector;
+import com.example.pricing.fault.FaultProfile;
 import com.example.pricing.service.PricingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.IntSupplier;
 
 /**
  * Controller REST pour le service de pricing
  * Endpoints:
  * - GET /price/{bookId} : récupère le prix d'un livre
+ * - POST /prices : récupère les prix d'un lot de livres (au plus pricing.batch.max-size)
+ * - POST /admin/prices : ajoute ou met à jour des prix du catalogue
+ * - PUT /admin/prices : remplace entièrement le catalogue de prix
+ * - POST /admin/prices/reload : re-projette le fichier de prix configuré
  * - POST /toggleDown : bascule l'état du service (UP/DOWN)
+ * - GET/PUT/DELETE /admin/faults : injection de pannes partielles (latence, erreurs, envoi lent)
+ * - PUT/DELETE /admin/faults/books/{bookId} : pannes propres à un livre
  * - GET /health-check : vérification de santé personnalisée
  */
 @RestController
@@ -23,9 +37,14 @@ public class PricingController {
     private static final Logger logger = LoggerFactory.getLogger(PricingController.class);
 
     private final PricingService pricingService;
+    private final FaultInjector faultInjector;
+    private final int maxBatchSize;
 
-    public PricingController(PricingService pricingService) {
+    public PricingController(PricingService pricingService, FaultInjector faultInjector,
+                             @Value("${pricing.batch.max-size:100}") int maxBatchSize) {
         this.pricingService = pricingService;
+        this.faultInjector = faultInjector;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
@@ -61,6 +80,131 @@ public class PricingController {
         }
     }
 
+    /**
+     * Récupère les prix d'un lot de livres
+     * Un lot vide, trop grand ou contenant un ID null est rejeté en 400: seule la
+     * panne simulée répond 503, que le client compte comme une indisponibilité.
+     * 
+     * @param bookIds liste des IDs de livres (au plus pricing.batch.max-size)
+     * @return JSON avec les prix indexés par bookId
+     */
+    @PostMapping("/prices")
+    public ResponseEntity<Map<String, Object>> getPrices(@RequestBody(required = false) List<Long> bookIds) {
+        String invalidBatch = validateBatch(bookIds);
+        if (invalidBatch != null) {
+            logger.warn("Rejected batch price request: {}", invalidBatch);
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", invalidBatch);
+            errorResponse.put("status", "error");
+
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        logger.info("Received batch price request for {} bookIds", bookIds.size());
+
+        try {
+            Map<Long, Double> prices = pricingService.getPrices(bookIds);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("prices", prices);
+            response.put("currency", "EUR");
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            logger.error("Error getting prices for {} bookIds: {}", bookIds.size(), e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("status", "error");
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+    }
+
+    /**
+     * @return motif de rejet du lot, null si le lot est valide
+     */
+    private String validateBatch(List<Long> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return "bookIds must not be empty";
+        }
+        if (bookIds.size() > maxBatchSize) {
+            return "Too many bookIds: " + bookIds.size() + " (max " + maxBatchSize + ")";
+        }
+        if (bookIds.contains(null)) {
+            return "bookIds must not contain null";
+        }
+        return null;
+    }
+
+    /**
+     * Ajoute ou met à jour des prix du catalogue (publication atomique du lot)
+     * 
+     * @param prices prix indexés par bookId, ex: {"1": 19.99, "42": 7.5}
+     * @return nombre de prix modifiés et taille du catalogue
+     */
+    @PostMapping("/admin/prices")
+    public ResponseEntity<Map<String, Object>> upsertPrices(@RequestBody Map<Long, Double> prices) {
+        logger.info("Received catalog upsert of {} prices", prices.size());
+        return updateCatalog(prices, () -> pricingService.upsertPrices(prices));
+    }
+
+    /**
+     * Remplace entièrement le catalogue de prix (rechargement à chaud)
+     * 
+     * @param prices nouveau catalogue, prix indexés par bookId
+     * @return taille du catalogue
+     */
+    @PutMapping("/admin/prices")
+    public ResponseEntity<Map<String, Object>> reloadPrices(@RequestBody Map<Long, Double> prices) {
+        logger.info("Received catalog reload of {} prices", prices.size());
+        return updateCatalog(prices, () -> pricingService.reloadPrices(prices));
+    }
+
+    /**
+     * Re-projette le fichier de prix (pricing.catalog.file), après reconstruction hors ligne
+     * 
+     * @return taille du catalogue
+     */
+    @PostMapping("/admin/prices/reload")
+    public ResponseEntity<Map<String, Object>> reloadPricesFromFile() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("catalogSize", pricingService.reloadFromFile());
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+
+        } catch (UncheckedIOException e) {
+            logger.error("Price catalog reload failed: {}", e.getCause().getMessage());
+            response.put("error", e.getMessage() + ": " + e.getCause().getMessage());
+            response.put("status", "error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> updateCatalog(Map<Long, Double> prices, IntSupplier update) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int catalogSize = update.getAsInt();
+            response.put("updated", prices.size());
+            response.put("catalogSize", catalogSize);
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Bascule l'état du service entre UP et DOWN
      * Utilisé pour simuler une panne et tester le fallback/circuit breaker
@@ -82,6 +226,70 @@ public class PricingController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Configuration courante de l'injection de pannes
+     */
+    @GetMapping("/admin/faults")
+    public ResponseEntity<FaultConfig> getFaults() {
+        return ResponseEntity.ok(faultInjector.getConfig());
+    }
+
+    /**
+     * Remplace la configuration de l'injection de pannes, ex:
+     * {"defaults": {"latency": {"distribution": "lognormal", "medianMs": 50, "sigma": 1.2},
+     *               "errorRate": 0.1},
+     *  "books": {"42": {"slowDrip": {"chunkBytes": 4, "chunkDelayMs": 200}}}}
+     * 
+     * @param config profil par défaut et profils par bookId
+     * @return configuration appliquée
+     */
+    @PutMapping("/admin/faults")
+    public ResponseEntity<FaultConfig> setFaults(@RequestBody FaultConfig config) {
+        faultInjector.setConfig(config);
+        return ResponseEntity.ok(faultInjector.getConfig());
+    }
+
+    /**
+     * Supprime toutes les pannes injectées
+     */
+    @DeleteMapping("/admin/faults")
+    public ResponseEntity<FaultConfig> clearFaults() {
+        faultInjector.setConfig(FaultConfig.NONE);
+        return ResponseEntity.ok(faultInjector.getConfig());
+    }
+
+    /**
+     * Définit les pannes d'un livre (remplace le profil par défaut pour ce livre)
+     */
+    @PutMapping("/admin/faults/books/{bookId}")
+    public ResponseEntity<FaultConfig> setBookFaults(@PathVariable Long bookId, @RequestBody FaultProfile profile) {
+        faultInjector.setBookProfile(bookId, profile);
+        return ResponseEntity.ok(faultInjector.getConfig());
+    }
+
+    /**
+     * Supprime les pannes d'un livre
+     */
+    @DeleteMapping("/admin/faults/books/{bookId}")
+    public ResponseEntity<FaultConfig> clearBookFaults(@PathVariable Long bookId) {
+        if (!faultInjector.removeBookProfile(bookId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(faultInjector.getConfig());
+    }
+
+    /**
+     * Corps de requête illisible ou invalide (ex: profil de panne incohérent)
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> handleUnreadableBody(HttpMessageNotReadableException e) {
+        Throwable cause = e.getMostSpecificCause();
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", cause.getMessage());
+        errorResponse.put("status", "error");
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     /**
      * Endpoint de vérification de santé personnalisé
      * 
@@ -93,6 +301,8 @@ public class PricingController {
         health.put("service", "pricing-service");
         health.put("status", pricingService.isServiceUp() ? "UP" : "DOWN (simulated)");
         health.put("simulatedFailure", !pricingService.isServiceUp());
+        health.put("catalogSize", pricingService.getCatalogSize());
+        health.put("faultInjection", faultInjector.isActive());
         health.put("timestamp", System.currentTimeMillis());
 
         return ResponseEntity.ok(health);
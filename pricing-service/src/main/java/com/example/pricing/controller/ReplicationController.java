@@ -0,0 +1,131 @@
+package com.example.pricing.controller;
+
+import com.example.pricing.catalog.PriceChanges;
+import com.example.pricing.service.PricingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réplication du catalogue de prix vers les clients (book-service)
+ * Endpoints:
+ * - GET /replication/snapshot : instantané NDJSON du catalogue
+ * - GET /replication/changes?epoch=&since=&waitMs= : prix modifiés depuis une version (long-poll)
+ *
+ * Instantané: une ligne d'en-tête
+ *   {"epoch":..,"defaultPrice":{"base":10.0,"step":2.5,"modulo":10}}
+ * une ligne [bookId,prix] par entrée (la dernière occurrence d'un bookId fait
+ * foi), puis une ligne de fin {"version":..,"entries":..}: un instantané sans
+ * ligne de fin (connexion coupée) est incomplet. Le client applique ensuite les
+ * modifications depuis la version de l'instantané; s'il n'y en a pas, la
+ * requête attend la prochaine publication au plus waitMs (réponse vide).
+ */
+@RestController
+public class ReplicationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final PricingService pricingService;
+    private final long maxWaitMs;
+
+    public ReplicationController(PricingService pricingService,
+                                 @Value("${pricing.replication.max-wait:25s}") Duration maxWait) {
+        this.pricingService = pricingService;
+        this.maxWaitMs = maxWait.toMillis();
+    }
+
+    /**
+     * Instantané du catalogue (flux NDJSON)
+     */
+    @GetMapping("/replication/snapshot")
+    public ResponseEntity<StreamingResponseBody> snapshot() {
+        if (!pricingService.isServiceUp()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        StreamingResponseBody body = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write("{\"epoch\":" + pricingService.getCatalogEpoch()
+                    + ",\"defaultPrice\":{\"base\":" + PricingService.DEFAULT_PRICE_BASE
+                    + ",\"step\":" + PricingService.DEFAULT_PRICE_STEP
+                    + ",\"modulo\":" + PricingService.DEFAULT_PRICE_MODULO + "}}\n");
+            long[] count = new long[1];
+            long version;
+            try {
+                version = pricingService.snapshot((bookId, price) -> {
+                    try {
+                        writer.write("[" + bookId + "," + price + "]\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.write("{\"version\":" + version + ",\"entries\":" + count[0] + "}\n");
+            writer.flush();
+            logger.info("Replication snapshot sent: version={}, entries={}", version, count[0]);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Prix modifiés depuis une version, en attendant la prochaine publication si besoin
+     *
+     * @param epoch  epoch de l'instantané du client
+     * @param since  version connue du client
+     * @param waitMs attente max sans modification (bornée par pricing.replication.max-wait)
+     */
+    @GetMapping("/replication/changes")
+    public CompletableFuture<ResponseEntity<Object>> changes(@RequestParam long epoch,
+                                                             @RequestParam long since,
+                                                             @RequestParam(defaultValue = "0") long waitMs) {
+        PriceChanges changes;
+        try {
+            changes = pricingService.getChangesSince(epoch, since);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(unavailable(e));
+        }
+        if (changes.reset() || !changes.prices().isEmpty() || waitMs <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok((Object) changes));
+        }
+
+        return pricingService.awaitChangeAfter(since)
+                .completeOnTimeout(since, Math.min(waitMs, maxWaitMs), TimeUnit.MILLISECONDS)
+                .thenApply(version -> {
+                    try {
+                        return ResponseEntity.ok((Object) pricingService.getChangesSince(epoch, since));
+                    } catch (RuntimeException e) {
+                        return unavailable(e);
+                    }
+                });
+    }
+
+    private static ResponseEntity<Object> unavailable(RuntimeException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", e.getMessage());
+        errorResponse.put("status", "error");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+}
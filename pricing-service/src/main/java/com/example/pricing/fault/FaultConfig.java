@@ -0,0 +1,33 @@
+package com.example.pricing.fault;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+
+/**
+ * Configuration complète de l'injection de pannes
+ *
+ * @param defaults profil appliqué à tous les livres (null = aucune panne)
+ * @param books    profils par bookId, remplaçant le profil par défaut pour ces livres
+ */
+public record FaultConfig(FaultProfile defaults, Map<Long, FaultProfile> books) {
+
+    public static final FaultConfig NONE = new FaultConfig(null, Map.of());
+
+    public FaultConfig {
+        books = books == null ? Map.of() : Map.copyOf(books);
+    }
+
+    /**
+     * @return profil applicable au livre, ou null
+     */
+    public FaultProfile profileFor(long bookId) {
+        FaultProfile profile = books.get(bookId);
+        return profile != null ? profile : defaults;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return defaults == null && books.isEmpty();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.pricing.fault;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applique les pannes décidées par {@link FaultInjector} sur GET /price/{bookId} et POST /prices
+ *
+ * La réponse du contrôleur est mise en mémoire, puis:
+ * - la latence tirée est ajoutée (le thread de requête reste occupé, comme une vraie lenteur)
+ * - en cas d'erreur injectée, elle est remplacée par une réponse d'erreur
+ * - en envoi lent, le corps est écrit par petits morceaux espacés
+ *
+ * Sans configuration de pannes, le filtre ne fait rien.
+ */
+@Component
+public class FaultInjectionFilter extends OncePerRequestFilter {
+
+    private static final String PRICE_PATH = "/price/";
+    private static final String PRICES_PATH = "/prices";
+    private static final TypeReference<List<Long>> BOOK_IDS = new TypeReference<>() {
+    };
+
+    private final FaultInjector faultInjector;
+    private final ObjectMapper objectMapper;
+
+    public FaultInjectionFilter(FaultInjector faultInjector, ObjectMapper objectMapper) {
+        this.faultInjector = faultInjector;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!faultInjector.isActive()) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !path.startsWith(PRICE_PATH) && !path.equals(PRICES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingRequestWrapper cachedRequest = new ContentCachingRequestWrapper(request);
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        chain.doFilter(cachedRequest, cachedResponse);
+
+        FaultInjector.Fault fault = plan(cachedRequest);
+        if (fault.delayMillis() > 0) {
+            sleep(fault.delayMillis());
+        }
+
+        if (fault.isError()) {
+            writeError(response, fault.errorStatus());
+        } else if (fault.slowDrip() != null) {
+            drip(cachedResponse, response, fault.slowDrip());
+        } else {
+            cachedResponse.copyBodyToResponse();
+        }
+    }
+
+    private FaultInjector.Fault plan(ContentCachingRequestWrapper request) {
+        String path = request.getRequestURI();
+        try {
+            if (path.startsWith(PRICE_PATH)) {
+                return faultInjector.plan(Long.parseLong(path.substring(PRICE_PATH.length())));
+            }
+            return faultInjector.plan(objectMapper.readValue(request.getContentAsByteArray(), BOOK_IDS));
+        } catch (IOException | NumberFormatException e) {
+            // Requête invalide: la réponse du contrôleur est renvoyée telle quelle
+            return FaultInjector.Fault.NONE;
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(Map.of(
+                "error", "Injected fault (status " + status + ")",
+                "status", "error"));
+        response.resetBuffer();
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void drip(ContentCachingResponseWrapper cachedResponse, HttpServletResponse response,
+                      FaultProfile.SlowDrip slowDrip) throws IOException {
+        byte[] body = cachedResponse.getContentAsByteArray();
+        ServletOutputStream out = response.getOutputStream();
+        for (int offset = 0; offset < body.length; offset += slowDrip.chunkBytes()) {
+            out.write(body, offset, Math.min(slowDrip.chunkBytes(), body.length - offset));
+            out.flush();
+            if (offset + slowDrip.chunkBytes() < body.length) {
+                sleep(slowDrip.chunkDelayMs());
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
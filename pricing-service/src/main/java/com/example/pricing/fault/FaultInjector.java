@@ -0,0 +1,169 @@
+package com.example.pricing.fault;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Injection de pannes partielles dans les réponses de prix (latence, erreurs, envoi lent)
+ *
+ * Complète le basculement UP/DOWN de PricingService: la configuration
+ * ({@link FaultConfig}) est modifiable à chaud via /admin/faults et publiée
+ * atomiquement, les requêtes en cours lisant l'ancienne ou la nouvelle.
+ * Les modifications sont sérialisées (aucune n'est perdue), les lectures restent sans verrou.
+ *
+ * Métrique: pricing.faults.injected{type=latency|error|slow_drip}
+ */
+@Component
+public class FaultInjector {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaultInjector.class);
+
+    private final Counter latencyCounter;
+    private final Counter errorCounter;
+    private final Counter slowDripCounter;
+
+    private volatile FaultConfig config = FaultConfig.NONE;
+
+    public FaultInjector(MeterRegistry meterRegistry) {
+        this.latencyCounter = counter(meterRegistry, "latency");
+        this.errorCounter = counter(meterRegistry, "error");
+        this.slowDripCounter = counter(meterRegistry, "slow_drip");
+    }
+
+    /**
+     * @return configuration courante
+     */
+    public FaultConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Remplace toute la configuration
+     * Synchronisé comme les modifications par livre: un remplacement concurrent
+     * ne peut pas s'intercaler dans leur lecture-modification-écriture.
+     */
+    public synchronized void setConfig(FaultConfig config) {
+        this.config = config != null ? config : FaultConfig.NONE;
+        logger.warn("Fault injection updated: {}", this.config);
+    }
+
+    /**
+     * Définit le profil d'un livre (remplace le profil par défaut pour ce livre)
+     */
+    public synchronized void setBookProfile(long bookId, FaultProfile profile) {
+        Map<Long, FaultProfile> books = new HashMap<>(config.books());
+        books.put(bookId, profile);
+        setConfig(new FaultConfig(config.defaults(), books));
+    }
+
+    /**
+     * Supprime le profil d'un livre
+     *
+     * @return true si un profil existait
+     */
+    public synchronized boolean removeBookProfile(long bookId) {
+        if (!config.books().containsKey(bookId)) {
+            return false;
+        }
+        Map<Long, FaultProfile> books = new HashMap<>(config.books());
+        books.remove(bookId);
+        setConfig(new FaultConfig(config.defaults(), books));
+        return true;
+    }
+
+    public boolean isActive() {
+        return !config.isEmpty();
+    }
+
+    /**
+     * Décide de la panne à appliquer à une réponse GET /price/{bookId}
+     */
+    public Fault plan(long bookId) {
+        FaultProfile profile = config.profileFor(bookId);
+        return profile == null ? Fault.NONE : record(draw(profile));
+    }
+
+    /**
+     * Décide de la panne à appliquer à une réponse POST /prices
+     * Le lot subit la pire issue de ses livres: latence maximale, erreur si un
+     * seul tirage échoue, comme un appel qui attendrait chaque prix.
+     */
+    public Fault plan(Collection<Long> bookIds) {
+        FaultConfig current = config;
+        Set<FaultProfile> profiles = new LinkedHashSet<>();
+        for (Long bookId : bookIds) {
+            FaultProfile profile = current.profileFor(bookId);
+            if (profile != null) {
+                profiles.add(profile);
+            }
+        }
+
+        Fault worst = Fault.NONE;
+        for (FaultProfile profile : profiles) {
+            worst = worst.combine(draw(profile));
+        }
+        return record(worst);
+    }
+
+    private static Fault draw(FaultProfile profile) {
+        long delayMillis = profile.latency() != null ? profile.latency().sampleMillis() : 0;
+        boolean error = profile.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < profile.errorRate();
+        return new Fault(delayMillis, error ? profile.errorStatus() : 0, error ? null : profile.slowDrip());
+    }
+
+    private Fault record(Fault fault) {
+        if (fault.delayMillis() > 0) {
+            latencyCounter.increment();
+        }
+        if (fault.isError()) {
+            errorCounter.increment();
+        } else if (fault.slowDrip() != null) {
+            slowDripCounter.increment();
+        }
+        return fault;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("pricing.faults.injected")
+                .description("Pannes injectées dans les réponses de prix")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Panne décidée pour une réponse
+     *
+     * @param delayMillis latence à ajouter
+     * @param errorStatus code HTTP d'erreur à renvoyer, 0 = pas d'erreur
+     * @param slowDrip    envoi lent du corps, null = envoi normal
+     */
+    public record Fault(long delayMillis, int errorStatus, FaultProfile.SlowDrip slowDrip) {
+
+        public static final Fault NONE = new Fault(0, 0, null);
+
+        public boolean isError() {
+            return errorStatus != 0;
+        }
+
+        public boolean isNone() {
+            return delayMillis == 0 && !isError() && slowDrip == null;
+        }
+
+        Fault combine(Fault other) {
+            return new Fault(
+                    Math.max(delayMillis, other.delayMillis),
+                    isError() ? errorStatus : other.errorStatus,
+                    slowDrip != null ? slowDrip : other.slowDrip);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.pricing.fault;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Dégradation simulée d'une réponse de prix
+ *
+ * @param latency     latence ajoutée (null = aucune)
+ * @param errorRate   probabilité de répondre en erreur, entre 0 et 1
+ * @param errorStatus code HTTP des erreurs injectées (503 par défaut)
+ * @param slowDrip    envoi lent du corps de réponse (null = envoi normal)
+ */
+public record FaultProfile(Latency latency, double errorRate, int errorStatus, SlowDrip slowDrip) {
+
+    public static final int DEFAULT_ERROR_STATUS = 503;
+
+    public FaultProfile {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1: " + errorRate);
+        }
+        if (errorStatus == 0) {
+            errorStatus = DEFAULT_ERROR_STATUS;
+        }
+        if (errorStatus < 400 || errorStatus > 599) {
+            throw new IllegalArgumentException("errorStatus must be a 4xx or 5xx code: " + errorStatus);
+        }
+    }
+
+    /**
+     * Latence ajoutée, tirée selon une distribution
+     *
+     * - fixed: valueMs
+     * - uniform: entre minMs et maxMs
+     * - lognormal: médiane medianMs, dispersion sigma (queue longue pour sigma >= 1)
+     * - pareto: minimum minMs, indice shape (queue très longue pour shape proche de 1)
+     *
+     * maxMs plafonne la valeur tirée (30s par défaut, borne haute pour uniform).
+     */
+    public record Latency(Distribution distribution, double valueMs, double minMs, double medianMs,
+                          double sigma, double shape, double maxMs) {
+
+        private static final double DEFAULT_MAX_MS = 30_000;
+
+        public Latency {
+            if (distribution == null) {
+                throw new IllegalArgumentException("latency.distribution is required (fixed, uniform, lognormal, pareto)");
+            }
+            if (maxMs <= 0) {
+                maxMs = DEFAULT_MAX_MS;
+            }
+            switch (distribution) {
+                case FIXED -> require(valueMs >= 0, "latency.valueMs must be >= 0");
+                case UNIFORM -> require(minMs >= 0 && minMs <= maxMs, "latency.minMs must be between 0 and maxMs");
+                case LOGNORMAL -> require(medianMs > 0 && sigma >= 0, "latency.medianMs must be > 0 and sigma >= 0");
+                case PARETO -> require(minMs > 0 && shape > 0, "latency.minMs and latency.shape must be > 0");
+            }
+        }
+
+        /**
+         * @return latence tirée, en millisecondes
+         */
+        public long sampleMillis() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double millis = switch (distribution) {
+                case FIXED -> valueMs;
+                case UNIFORM -> minMs + random.nextDouble() * (maxMs - minMs);
+                case LOGNORMAL -> medianMs * Math.exp(sigma * random.nextGaussian());
+                case PARETO -> minMs / Math.pow(1 - random.nextDouble(), 1 / shape);
+            };
+            return Math.round(Math.min(millis, maxMs));
+        }
+    }
+
+    public enum Distribution {
+        FIXED, UNIFORM, LOGNORMAL, PARETO;
+
+        @JsonCreator
+        public static Distribution of(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Corps de réponse envoyé par morceaux de chunkBytes octets, espacés de chunkDelayMs
+     * (connexion occupée longtemps alors que les en-têtes sont déjà reçus)
+     */
+    public record SlowDrip(int chunkBytes, long chunkDelayMs) {
+
+        public SlowDrip {
+            require(chunkBytes > 0, "slowDrip.chunkBytes must be > 0");
+            require(chunkDelayMs >= 0, "slowDrip.chunkDelayMs must be >= 0");
+        }
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
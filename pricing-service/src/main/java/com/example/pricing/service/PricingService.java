@@ -1,35 +1,75 @@
 package com.example.pricing.service;
 
+import com.example.pricing.catalog.LongDoubleHashMap;
+import com.example.pricing.catalog.MappedPriceStore;
+import com.example.pricing.catalog.PriceCatalog;
+import com.example.pricing.catalog.PriceChanges;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service de gestion des prix
  * Simule un catalogue de prix et permet de simuler une panne
+ *
+ * Le catalogue est un instantané immuable à clés primitives, remplacé
+ * atomiquement lors des mises à jour (voir {@link PriceCatalog}): les lectures
+ * de prix ne prennent aucun verrou, même pendant un rechargement.
+ *
+ * Si pricing.catalog.file est défini, le catalogue est servi depuis ce fichier
+ * projeté en mémoire (voir {@link MappedPriceStore}) au lieu des prix par défaut.
+ *
+ * Le catalogue est versionné pour la réplication: instantané puis
+ * modifications depuis une version (voir ReplicationController).
  */
 @Service
 public class PricingService {
 
     private static final Logger logger = LoggerFactory.getLogger(PricingService.class);
 
+    // Prix par défaut d'un livre absent du catalogue: BASE + (bookId % MODULO) × STEP
+    public static final double DEFAULT_PRICE_BASE = 10.0;
+    public static final double DEFAULT_PRICE_STEP = 2.5;
+    public static final long DEFAULT_PRICE_MODULO = 10;
+
     // État du service (UP = true, DOWN = false)
     private final AtomicBoolean serviceUp = new AtomicBoolean(true);
 
     // Catalogue de prix simulé (bookId -> price)
-    private final Map<Long, Double> pricesCatalog = new HashMap<>();
+    private final PriceCatalog pricesCatalog = new PriceCatalog();
+
+    // Fichier de prix projeté (vide = catalogue en mémoire uniquement)
+    private final String catalogFile;
+
+    public PricingService(MeterRegistry meterRegistry, @Value("${pricing.catalog.file:}") String catalogFile) {
+        this.catalogFile = catalogFile;
+        Gauge.builder("pricing.catalog.version", pricesCatalog, PriceCatalog::getVersion)
+                .description("Version courante du catalogue de prix (incrémentée à chaque publication)")
+                .register(meterRegistry);
+        if (!catalogFile.isBlank()) {
+            reloadFromFile();
+            return;
+        }
 
-    public PricingService() {
         // Initialisation du catalogue de prix par défaut
-        pricesCatalog.put(1L, 19.99);
-        pricesCatalog.put(2L, 24.99);
-        pricesCatalog.put(3L, 14.99);
-        pricesCatalog.put(4L, 29.99);
-        pricesCatalog.put(5L, 9.99);
+        pricesCatalog.replaceAll(Map.of(
+                1L, 19.99,
+                2L, 24.99,
+                3L, 14.99,
+                4L, 29.99,
+                5L, 9.99));
         logger.info("PricingService initialized with {} default prices", pricesCatalog.size());
     }
 
@@ -40,18 +80,143 @@ public class PricingService {
      * @return prix du livre
      * @throws RuntimeException si le service est en panne simulée
      */
-    public double getPrice(Long bookId) {
+    public double getPrice(long bookId) {
         if (!serviceUp.get()) {
             logger.error("PricingService is DOWN - simulating failure for bookId={}", bookId);
             throw new RuntimeException("Pricing service is temporarily unavailable (simulated failure)");
         }
 
         // Retourne le prix du catalogue ou un prix par défaut basé sur l'ID
-        Double price = pricesCatalog.getOrDefault(bookId, 10.0 + (bookId % 10) * 2.5);
+        double price = pricesCatalog.getOrDefault(bookId, defaultPrice(bookId));
         logger.info("PricingService: returning price {} for bookId={}", price, bookId);
         return price;
     }
 
+    /**
+     * Récupère les prix d'un lot de livres en un seul appel
+     * 
+     * @param bookIds IDs des livres
+     * @return prix par ID de livre (dans l'ordre de la requête)
+     * @throws RuntimeException si le service est en panne simulée
+     */
+    public Map<Long, Double> getPrices(Collection<Long> bookIds) {
+        if (!serviceUp.get()) {
+            logger.error("PricingService is DOWN - simulating failure for {} bookIds", bookIds.size());
+            throw new RuntimeException("Pricing service is temporarily unavailable (simulated failure)");
+        }
+
+        Map<Long, Double> prices = new LinkedHashMap<>();
+        for (Long bookId : bookIds) {
+            prices.put(bookId, pricesCatalog.getOrDefault(bookId, defaultPrice(bookId)));
+        }
+        logger.info("PricingService: returning {} prices", prices.size());
+        return prices;
+    }
+
+    /**
+     * Ajoute ou met à jour des prix du catalogue
+     * Les lectures concurrentes voient soit l'ancien, soit le nouveau catalogue complet.
+     * 
+     * @param prices prix par ID de livre
+     * @return taille du catalogue après mise à jour
+     * @throws IllegalArgumentException si un prix est invalide
+     */
+    public int upsertPrices(Map<Long, Double> prices) {
+        validate(prices);
+        int size = pricesCatalog.upsertAll(prices);
+        logger.info("PricingService: upserted {} prices, catalog size={}", prices.size(), size);
+        return size;
+    }
+
+    /**
+     * Remplace entièrement le catalogue de prix
+     * 
+     * @param prices nouveau catalogue
+     * @return taille du catalogue
+     * @throws IllegalArgumentException si un prix est invalide
+     */
+    public int reloadPrices(Map<Long, Double> prices) {
+        validate(prices);
+        int size = pricesCatalog.replaceAll(prices);
+        logger.warn("PricingService: catalog reloaded with {} prices", size);
+        return size;
+    }
+
+    /**
+     * Re-projette le fichier de prix configuré (pricing.catalog.file)
+     * Permet de publier un fichier reconstruit hors ligne sans redémarrer;
+     * les prix ajoutés en mémoire depuis sont abandonnés.
+     * 
+     * @return taille du catalogue
+     * @throws IllegalStateException si aucun fichier n'est configuré
+     * @throws UncheckedIOException  si le fichier est illisible ou invalide
+     */
+    public int reloadFromFile() {
+        if (catalogFile.isBlank()) {
+            throw new IllegalStateException("No price catalog file configured (pricing.catalog.file)");
+        }
+        long start = System.nanoTime();
+        try {
+            MappedPriceStore store = MappedPriceStore.open(Path.of(catalogFile));
+            int size = pricesCatalog.replaceAll(store);
+            logger.info("PricingService: mapped {} prices from {} in {} ms",
+                    size, catalogFile, (System.nanoTime() - start) / 1_000_000);
+            return size;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map price catalog " + catalogFile, e);
+        }
+    }
+
+    /**
+     * Parcourt l'instantané courant du catalogue (réplication)
+     *
+     * @param consumer reçoit chaque (bookId, prix); un bookId peut apparaître deux fois,
+     *                 la dernière occurrence fait foi
+     * @return version de l'instantané parcouru
+     * @throws RuntimeException si le service est en panne simulée
+     */
+    public long snapshot(LongDoubleHashMap.EntryConsumer consumer) {
+        checkUp("catalog snapshot");
+        return pricesCatalog.snapshot(consumer);
+    }
+
+    /**
+     * Prix modifiés depuis une version (réplication)
+     *
+     * @param epoch epoch connue du réplica: si elle diffère, le réplica doit recharger l'instantané
+     * @param since version connue du réplica
+     * @throws RuntimeException si le service est en panne simulée
+     */
+    public PriceChanges getChangesSince(long epoch, long since) {
+        checkUp("catalog changes");
+        if (epoch != pricesCatalog.getEpoch()) {
+            return new PriceChanges(pricesCatalog.getEpoch(), pricesCatalog.getVersion(),
+                    System.currentTimeMillis(), true, Map.of());
+        }
+        return pricesCatalog.changesSince(since);
+    }
+
+    /**
+     * @return futur complété dès que la version du catalogue dépasse since
+     */
+    public CompletableFuture<Long> awaitChangeAfter(long since) {
+        return pricesCatalog.awaitVersionAfter(since);
+    }
+
+    /**
+     * @return identifiant de l'instance du catalogue (change au redémarrage)
+     */
+    public long getCatalogEpoch() {
+        return pricesCatalog.getEpoch();
+    }
+
+    /**
+     * @return nombre de prix présents dans le catalogue
+     */
+    public int getCatalogSize() {
+        return pricesCatalog.size();
+    }
+
     /**
      * Bascule l'état du service (UP <-> DOWN)
      * 
@@ -70,4 +235,23 @@ public class PricingService {
     public boolean isServiceUp() {
         return serviceUp.get();
     }
+
+    private void checkUp(String operation) {
+        if (!serviceUp.get()) {
+            logger.error("PricingService is DOWN - simulating failure for {}", operation);
+            throw new RuntimeException("Pricing service is temporarily unavailable (simulated failure)");
+        }
+    }
+
+    private static double defaultPrice(long bookId) {
+        return DEFAULT_PRICE_BASE + (bookId % DEFAULT_PRICE_MODULO) * DEFAULT_PRICE_STEP;
+    }
+
+    private static void validate(Map<Long, Double> prices) {
+        prices.forEach((bookId, price) -> {
+            if (bookId == null || price == null || !Double.isFinite(price) || price < 0) {
+                throw new IllegalArgumentException("Invalid price for bookId=" + bookId + ": " + price);
+            }
+        });
+    }
 }
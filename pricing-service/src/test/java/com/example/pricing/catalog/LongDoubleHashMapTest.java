@@ -0,0 +1,115 @@
+package com.example.pricing.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongDoubleHashMapTest {
+
+    @Test
+    void emptyMapReturnsDefault() {
+        LongDoubleHashMap map = LongDoubleHashMap.empty();
+
+        assertThat(map.size()).isZero();
+        assertThat(map.getOrDefault(42L, -1.0)).isEqualTo(-1.0);
+        assertThat(map.containsKey(0L)).isFalse();
+    }
+
+    @Test
+    void keepsAllEntriesAcrossResizes() {
+        // Dimensionné pour 2 entrées: de nombreux agrandissements pendant le remplissage
+        LongDoubleHashMap.Builder builder = new LongDoubleHashMap.Builder(2);
+        Map<Long, Double> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextLong();
+            double value = random.nextDouble();
+            builder.put(key, value);
+            expected.put(key, value);
+        }
+
+        LongDoubleHashMap map = builder.build();
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.getOrDefault(key, Double.NaN)).isEqualTo(value));
+        assertThat(map.getOrDefault(Long.MIN_VALUE + 1, -1.0)).isEqualTo(-1.0);
+    }
+
+    @Test
+    void keepsKeysWithIdenticalLowBitsReachableAfterResize() {
+        // Multiples de 2^32: bits de poids faible identiques, seul le hachage les répartit
+        LongDoubleHashMap.Builder builder = new LongDoubleHashMap.Builder(2);
+        for (long i = 1; i <= 1_000; i++) {
+            builder.put(i << 32, i);
+        }
+
+        LongDoubleHashMap map = builder.build();
+
+        assertThat(map.size()).isEqualTo(1_000);
+        for (long i = 1; i <= 1_000; i++) {
+            assertThat(map.getOrDefault(i << 32, -1.0)).isEqualTo(i);
+        }
+        assertThat(map.containsKey(1_001L << 32)).isFalse();
+    }
+
+    @Test
+    void overwritingAKeyDoesNotChangeSize() {
+        LongDoubleHashMap map = new LongDoubleHashMap.Builder(4)
+                .put(7L, 1.0)
+                .put(7L, 2.0)
+                .put(0L, 3.0)
+                .put(0L, 4.0)
+                .build();
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.getOrDefault(7L, -1.0)).isEqualTo(2.0);
+        assertThat(map.getOrDefault(0L, -1.0)).isEqualTo(4.0);
+    }
+
+    @Test
+    void storesZeroKeyOutsideTheTable() {
+        LongDoubleHashMap map = new LongDoubleHashMap.Builder(1).put(0L, 9.5).build();
+
+        assertThat(map.containsKey(0L)).isTrue();
+        assertThat(map.getOrDefault(0L, -1.0)).isEqualTo(9.5);
+        Map<Long, Double> entries = new HashMap<>();
+        map.forEach(entries::put);
+        assertThat(entries).containsExactly(Map.entry(0L, 9.5));
+    }
+
+    @Test
+    void toBuilderCopiesWithoutModifyingTheSource() {
+        LongDoubleHashMap.Builder builder = new LongDoubleHashMap.Builder(10);
+        for (long i = 0; i < 10; i++) {
+            builder.put(i, i * 10.0);
+        }
+        LongDoubleHashMap source = builder.build();
+
+        // Même capacité (copie brute des tableaux) puis capacité supérieure (re-hachage)
+        LongDoubleHashMap sameCapacity = source.toBuilder(0).put(3L, -3.0).put(100L, 1.0).build();
+        LongDoubleHashMap grown = source.toBuilder(10_000).put(5L, -5.0).build();
+
+        assertThat(source.size()).isEqualTo(10);
+        assertThat(source.getOrDefault(3L, -1.0)).isEqualTo(30.0);
+        assertThat(source.containsKey(100L)).isFalse();
+
+        assertThat(sameCapacity.size()).isEqualTo(11);
+        assertThat(sameCapacity.getOrDefault(3L, -1.0)).isEqualTo(-3.0);
+        assertThat(sameCapacity.getOrDefault(0L, -1.0)).isEqualTo(0.0);
+
+        assertThat(grown.size()).isEqualTo(10);
+        assertThat(grown.getOrDefault(5L, -1.0)).isEqualTo(-5.0);
+        assertThat(grown.getOrDefault(9L, -1.0)).isEqualTo(90.0);
+    }
+
+    @Test
+    void rejectsAnImpossibleCapacity() {
+        assertThatThrownBy(() -> new LongDoubleHashMap.Builder(Integer.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
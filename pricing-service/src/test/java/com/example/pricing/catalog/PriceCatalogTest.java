@@ -0,0 +1,55 @@
+package com.example.pricing.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void upsertCountsOnlyNewBooks() {
+        PriceCatalog catalog = new PriceCatalog();
+        catalog.replaceAll(Map.of(1L, 10.0, 2L, 20.0));
+
+        assertThat(catalog.upsertAll(Map.of(2L, 25.0, 3L, 30.0))).isEqualTo(3);
+        assertThat(catalog.size()).isEqualTo(3);
+    }
+
+    @Test
+    void bookInMemoryAndInFileCountsOnce() throws IOException {
+        PriceCatalog catalog = new PriceCatalog();
+        catalog.replaceAll(store(Map.of(1L, 10.0, 2L, 20.0, 3L, 30.0)));
+
+        // 2 et 3 masquent le fichier, seul 4 est nouveau
+        assertThat(catalog.upsertAll(Map.of(2L, 21.0, 3L, 31.0, 4L, 40.0))).isEqualTo(4);
+        assertThat(catalog.upsertAll(Map.of(4L, 41.0))).isEqualTo(4);
+        assertThat(catalog.size()).isEqualTo(4);
+        assertThat(catalog.getOrDefault(2L, -1.0)).isEqualTo(21.0);
+        assertThat(catalog.getOrDefault(1L, -1.0)).isEqualTo(10.0);
+    }
+
+    @Test
+    void replacingWithFileDropsMemoryPrices() throws IOException {
+        PriceCatalog catalog = new PriceCatalog();
+        catalog.upsertAll(Map.of(1L, 10.0, 5L, 50.0));
+
+        assertThat(catalog.replaceAll(store(Map.of(1L, 11.0)))).isEqualTo(1);
+        assertThat(catalog.size()).isEqualTo(1);
+    }
+
+    private MappedPriceStore store(Map<Long, Double> prices) throws IOException {
+        LongDoubleHashMap.Builder builder = new LongDoubleHashMap.Builder(prices.size());
+        prices.forEach(builder::put);
+        Path file = directory.resolve("prices-" + System.nanoTime() + ".bin");
+        PriceStoreBuilder.write(builder.build(), file);
+        return MappedPriceStore.open(file);
+    }
+}